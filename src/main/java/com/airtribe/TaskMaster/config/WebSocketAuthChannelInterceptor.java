@@ -1,6 +1,8 @@
 package com.airtribe.TaskMaster.config;
 
+import com.airtribe.TaskMaster.entity.User;
 import com.airtribe.TaskMaster.security.JwtUtil;
+import com.airtribe.TaskMaster.service.PresenceRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -26,6 +28,9 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
@@ -49,6 +54,9 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
                         
                         accessor.setUser(auth);
                         accessor.setLeaveMutable(true);
+                        if (userDetails instanceof User user) {
+                            presenceRegistry.connected(user.getId(), accessor.getSessionId());
+                        }
                         logger.debug("Successfully authenticated user: {}", username);
                     } else {
                         logger.warn("Invalid token");
@@ -56,6 +64,9 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
                 } else {
                     logger.warn("No authorization token found");
                 }
+            } else if (StompCommand.DISCONNECT.equals(accessor.getCommand())) {
+                // also sent by the server when a session closes without one from the client
+                presenceRegistry.disconnected(accessor.getSessionId());
             } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
                 logger.debug("Processing SUBSCRIBE command for destination: {}", accessor.getDestination());
                 if (accessor.getUser() != null) {
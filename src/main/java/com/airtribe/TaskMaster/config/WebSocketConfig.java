@@ -82,6 +82,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                })
                .setHandshakeHandler(new DefaultHandshakeHandler())
                .withSockJS();
+        // handle each session's frames in order, so a client's notification subscription is
+        // registered before its replay subscription is answered
+        registry.setPreserveReceiveOrder(true);
     }
 
     @Override
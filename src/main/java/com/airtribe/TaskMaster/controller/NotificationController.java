@@ -1,36 +1,109 @@
 package com.airtribe.TaskMaster.controller;
 
+import com.airtribe.TaskMaster.dto.CursorPage;
+import com.airtribe.TaskMaster.dto.MarkReadRequest;
+import com.airtribe.TaskMaster.dto.NotificationPreferences;
+import com.airtribe.TaskMaster.dto.UnreadCount;
 import com.airtribe.TaskMaster.entity.Notification;
 import com.airtribe.TaskMaster.entity.User;
+import com.airtribe.TaskMaster.exception.BadRequestException;
 import com.airtribe.TaskMaster.service.NotificationService;
+import com.airtribe.TaskMaster.service.NotificationStream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationController {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String DEFAULT_PAGE_SIZE = "20";
+    private static final int MAX_MARK_READ = 1000;
     private final NotificationService notificationService;
+    private final NotificationStream notificationStream;
 
     @Autowired
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService, NotificationStream notificationStream) {
         this.notificationService = notificationService;
+        this.notificationStream = notificationStream;
     }
 
     @GetMapping
-    public ResponseEntity<List<Notification>> getUserNotifications(Authentication authentication) {
+    public ResponseEntity<CursorPage<Notification>> getUserNotifications(
+            Authentication authentication,
+            @RequestParam(required = false) Instant since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = DEFAULT_PAGE_SIZE) int limit) {
         User user = (User) authentication.getPrincipal();
-        return ResponseEntity.ok(notificationService.getUserNotifications(user.getId()));
+        return ResponseEntity.ok(notificationService.getUserNotifications(user.getId(), since, cursor, checkLimit(limit)));
     }
 
     @GetMapping("/unread")
-    public ResponseEntity<List<Notification>> getUnreadNotifications(Authentication authentication) {
+    public ResponseEntity<CursorPage<Notification>> getUnreadNotifications(
+            Authentication authentication,
+            @RequestParam(required = false) Instant since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = DEFAULT_PAGE_SIZE) int limit) {
         User user = (User) authentication.getPrincipal();
-        return ResponseEntity.ok(notificationService.getUnreadNotifications(user.getId()));
+        return ResponseEntity.ok(notificationService.getUnreadNotifications(user.getId(), since, cursor, checkLimit(limit)));
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<UnreadCount> getUnreadCount(Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(new UnreadCount(notificationService.getUnreadCount(user.getId())));
+    }
+
+    /**
+     * Server-Sent Events stream of the user's notification pushes. A reconnecting client
+     * sends the ID of the last event it received as {@code Last-Event-ID} to get what it missed.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication authentication,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        User user = (User) authentication.getPrincipal();
+        return notificationStream.subscribe(user.getId(), lastEventId);
+    }
+
+    @GetMapping("/preferences")
+    public ResponseEntity<NotificationPreferences> getPreferences(Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(new NotificationPreferences(notificationService.getDelivery(user.getId())));
+    }
+
+    @PutMapping("/preferences")
+    public ResponseEntity<NotificationPreferences> updatePreferences(Authentication authentication,
+                                                                     @RequestBody NotificationPreferences preferences) {
+        if (preferences.getDelivery() == null) {
+            throw new BadRequestException("delivery must be INSTANT or DIGEST");
+        }
+        User user = (User) authentication.getPrincipal();
+        notificationService.setDelivery(user.getId(), preferences.getDelivery());
+        return ResponseEntity.ok(preferences);
+    }
+
+    @PostMapping("/read")
+    public ResponseEntity<UnreadCount> markRead(Authentication authentication, @RequestBody MarkReadRequest request) {
+        if (request.getIds() == null || request.getIds().isEmpty() || request.getIds().size() > MAX_MARK_READ) {
+            throw new BadRequestException("ids must contain between 1 and " + MAX_MARK_READ + " notification IDs");
+        }
+        User user = (User) authentication.getPrincipal();
+        notificationService.markAsRead(user.getId(), request.getIds());
+        return ResponseEntity.ok(new UnreadCount(notificationService.getUnreadCount(user.getId())));
+    }
+
+    @PostMapping("/read-all")
+    public ResponseEntity<UnreadCount> markAllRead(Authentication authentication,
+                                                   @RequestParam(required = false) String upTo) {
+        User user = (User) authentication.getPrincipal();
+        notificationService.markAllAsRead(user.getId(), upTo);
+        return ResponseEntity.ok(new UnreadCount(notificationService.getUnreadCount(user.getId())));
     }
 
     @PostMapping("/{notificationId}/read")
@@ -38,4 +111,11 @@ public class NotificationController {
         notificationService.markAsRead(notificationId);
         return ResponseEntity.ok().build();
     }
+
+    private int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
 }
@@ -0,0 +1,36 @@
+package com.airtribe.TaskMaster.controller;
+
+import com.airtribe.TaskMaster.dto.NotificationReplay;
+import com.airtribe.TaskMaster.entity.User;
+import com.airtribe.TaskMaster.service.NotificationReplayBuffer;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+/**
+ * Catches up a STOMP client that reconnected. After subscribing to its notifications again,
+ * the client subscribes to {@code /app/notifications/replay} with a {@code last-seq} header
+ * holding the {@code seq} of the last push it received, and gets one reply with what it missed.
+ */
+@Controller
+public class NotificationReplayController {
+
+    private final NotificationReplayBuffer replayBuffer;
+
+    public NotificationReplayController(NotificationReplayBuffer replayBuffer) {
+        this.replayBuffer = replayBuffer;
+    }
+
+    @SubscribeMapping("/notifications/replay")
+    public NotificationReplay replay(Principal principal,
+                                     @Header(name = "last-seq", defaultValue = "0") long lastSeq) {
+        if (!(principal instanceof Authentication authentication) || !(authentication.getPrincipal() instanceof User user)) {
+            throw new AccessDeniedException("Replay requires an authenticated session");
+        }
+        return replayBuffer.replay(user.getId(), lastSeq);
+    }
+}
@@ -1,7 +1,13 @@
 package com.airtribe.TaskMaster.controller;
+import com.airtribe.TaskMaster.dto.AssignmentRequest;
+import com.airtribe.TaskMaster.dto.BulkResult;
+import com.airtribe.TaskMaster.dto.CursorPage;
+import com.airtribe.TaskMaster.entity.Priority;
 import com.airtribe.TaskMaster.entity.Status;
 import com.airtribe.TaskMaster.entity.Task;
 import com.airtribe.TaskMaster.entity.SortDirection;
+import com.airtribe.TaskMaster.repository.TaskFilter;
+import com.airtribe.TaskMaster.service.TaskBulkService;
 import com.airtribe.TaskMaster.service.TaskService;
 import com.airtribe.TaskMaster.exception.BadRequestException;
 import com.airtribe.TaskMaster.exception.TaskAlreadyAssignedException;
@@ -12,6 +18,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,11 +36,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Task Management", description = "APIs for managing tasks")
 public class TaskController {
     private static final Logger logger = LoggerFactory.getLogger(TaskController.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String DEFAULT_PAGE_SIZE = "20";
     private TaskService taskService;
+    private TaskBulkService taskBulkService;
 
     @Autowired
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, TaskBulkService taskBulkService) {
         this.taskService = taskService;
+        this.taskBulkService = taskBulkService;
     }
 
     @Operation(
@@ -73,6 +84,151 @@ public class TaskController {
         
         return ResponseEntity.ok(taskService.create(task));
     }
+
+    @Operation(
+        summary = "Create tasks in bulk",
+        description = "Create many tasks in one transaction. Every item is validated first; invalid items are reported and skipped, the rest are inserted in JDBC batches"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Per-item results, in request order",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResult.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Empty or oversized request",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized",
+            content = @Content
+        )
+    })
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResult> createTasks(
+            @Parameter(description = "Tasks to create", required = true)
+            @RequestBody List<Task> tasks,
+
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(taskBulkService.createAll(tasks, userDetails.getUsername()));
+    }
+
+    @Operation(
+        summary = "Assign tasks in bulk",
+        description = "Assign many tasks in one transaction. Each assignee receives one aggregated notification; unknown users, missing tasks and tasks that are already assigned are reported per item"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Per-item results, in request order",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResult.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Empty or oversized request",
+            content = @Content
+        )
+    })
+    @PostMapping("/bulk/assign")
+    public ResponseEntity<BulkResult> assignTasks(
+            @Parameter(description = "Task and user ID pairs", required = true)
+            @RequestBody List<AssignmentRequest> assignments,
+
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(taskBulkService.assignAll(assignments, userDetails.getUsername()));
+    }
+
+    @Operation(
+        summary = "Complete tasks in bulk",
+        description = "Complete many tasks in one transaction; tasks without an active assignment are reported per item"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Per-item results, in request order",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResult.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Empty or oversized request",
+            content = @Content
+        )
+    })
+    @PostMapping("/bulk/complete")
+    public ResponseEntity<BulkResult> completeTasks(
+            @Parameter(description = "IDs of the tasks to complete", required = true)
+            @RequestBody List<String> taskIds,
+
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(taskBulkService.completeAll(taskIds, userDetails.getUsername()));
+    }
+
+    @Operation(
+        summary = "List tasks",
+        description = "List tasks matching any combination of filters, one page at a time, following nextCursor for further pages"
+    )
+    @GetMapping
+    public ResponseEntity<CursorPage<Task>> listTasks(
+            @Parameter(description = "Words that must each start a word of the title, ignoring case and accents")
+            @RequestParam(required = false) String title,
+
+            @Parameter(description = "Words that must each start a word of the description, ignoring case and accents")
+            @RequestParam(required = false) String description,
+
+            @Parameter(description = "Priority: LOW, MEDIUM or HIGH")
+            @RequestParam(required = false) Priority priority,
+
+            @Parameter(description = "Only tasks due at or after this instant (ISO-8601)")
+            @RequestParam(required = false) Instant dueFrom,
+
+            @Parameter(description = "Only tasks due before this instant (ISO-8601)")
+            @RequestParam(required = false) Instant dueBefore,
+
+            @Parameter(description = "Username of the task creator")
+            @RequestParam(required = false) String createdBy,
+
+            @Parameter(description = "Only tasks with an assignment in this status")
+            @RequestParam(required = false) Status assignmentStatus,
+
+            @Parameter(description = "Only tasks assigned to this user")
+            @RequestParam(required = false) String assignedTo,
+
+            @Parameter(description = "Whether to list deleted (true) or live (false, default) tasks")
+            @RequestParam(required = false, defaultValue = "false") boolean deleted,
+
+            @Parameter(description = "Field to sort by: 'createdAt' (default), 'updatedAt', 'dueDate', 'title' or 'description'")
+            @RequestParam(required = false) String sortField,
+
+            @Parameter(description = "Sort direction: 'ASC' or 'DESC' (default)")
+            @RequestParam(required = false, defaultValue = "DESC") String sortDir,
+
+            @Parameter(description = "Cursor returned with the previous page")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Maximum number of tasks to return (1-100)")
+            @RequestParam(required = false, defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        if (dueFrom != null && dueBefore != null && !dueFrom.isBefore(dueBefore)) {
+            throw new BadRequestException("dueFrom must be before dueBefore");
+        }
+        TaskFilter.TaskFilterBuilder filter = TaskFilter.builder()
+                .title(title)
+                .description(description)
+                .matchAll(true)
+                .priority(priority)
+                .dueFrom(dueFrom)
+                .dueBefore(dueBefore)
+                .createdBy(createdBy)
+                .assignmentStatus(assignmentStatus)
+                .assignedTo(assignedTo)
+                .deleted(deleted);
+        return ResponseEntity.ok(taskService.findAll(filter, sortField, parseSortDirection(sortDir), cursor, checkLimit(limit)));
+    }
+
     @Operation(
         summary = "Get a task by ID",
         description = "Retrieve a task's details by its ID"
@@ -107,13 +263,16 @@ public class TaskController {
      * @param title Optional search term for task title
      * @param description Optional search term for task description
      * @param searchType Optional type of search: 'any' (default) or 'both'
-     * @param sortField Optional field to sort by: 'title', 'description', or 'createdAt' (default)
+     * @param sortField Optional field to sort by: 'createdAt' (default), 'updatedAt', 'dueDate', 'title', 'description' or 'relevance'
      * @param sortDir Optional sort direction: 'ASC' or 'DESC' (default)
-     * @return List of matching tasks
+     * @param cursor Optional cursor returned with the previous page
+     * @param limit Optional maximum number of tasks to return (default 20, at most 100)
+     * @return One page of matching tasks
      */
     @Operation(
         summary = "Search tasks",
-        description = "Search tasks by title and/or description with sorting options"
+        description = "Search tasks by title and/or description with sorting options. Every word of a search term must "
+                + "match the start of a word in its field, in any order, ignoring case and accents"
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -133,21 +292,27 @@ public class TaskController {
         )
     })
     @GetMapping("/search")
-    public ResponseEntity<List<Task>> searchTasks(
-            @Parameter(description = "Search term for task title") 
+    public ResponseEntity<CursorPage<Task>> searchTasks(
+            @Parameter(description = "Words that must each start a word of the title, ignoring case and accents")
             @RequestParam(required = false) String title,
             
-            @Parameter(description = "Search term for task description")
+            @Parameter(description = "Words that must each start a word of the description, ignoring case and accents")
             @RequestParam(required = false) String description,
             
             @Parameter(description = "Type of search: 'any' (default) or 'both'")
             @RequestParam(required = false, defaultValue = "any") String searchType,
             
-            @Parameter(description = "Field to sort by: 'title', 'description', or 'createdAt'")
+            @Parameter(description = "Field to sort by: 'createdAt' (default), 'updatedAt', 'dueDate', 'title', 'description' or 'relevance'")
             @RequestParam(required = false) String sortField,
             
             @Parameter(description = "Sort direction: 'ASC' or 'DESC' (default)")
-            @RequestParam(required = false, defaultValue = "DESC") String sortDir) {
+            @RequestParam(required = false, defaultValue = "DESC") String sortDir,
+
+            @Parameter(description = "Cursor returned with the previous page")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Maximum number of tasks to return (1-100)")
+            @RequestParam(required = false, defaultValue = DEFAULT_PAGE_SIZE) int limit) {
         
         logger.info("Searching tasks with title: {}, description: {}, type: {}, sort: {} {}", 
             title, description, searchType, sortField, sortDir);
@@ -157,13 +322,8 @@ public class TaskController {
             throw new BadRequestException("At least one search term (title or description) is required");
         }
 
-        // Validate sort direction
-        SortDirection direction;
-        try {
-            direction = SortDirection.valueOf(sortDir.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new BadRequestException("Sort direction must be 'ASC' or 'DESC'");
-        }
+        SortDirection direction = parseSortDirection(sortDir);
+        checkLimit(limit);
 
         // Search based on type
         if ("both".equalsIgnoreCase(searchType)) {
@@ -171,28 +331,72 @@ public class TaskController {
             if (title == null || description == null) {
                 throw new BadRequestException("Both title and description are required for 'both' search type");
             }
-            return ResponseEntity.ok(taskService.searchByTitleAndDescription(title, description, sortField, direction));
+            return ResponseEntity.ok(taskService.searchByTitleAndDescription(title, description, sortField, direction, cursor, limit));
         } else {
             // Match either title OR description
             if (title != null && description != null) {
-                return ResponseEntity.ok(taskService.searchByTitleOrDescription(title, description, sortField, direction));
+                return ResponseEntity.ok(taskService.searchByTitleOrDescription(title, description, sortField, direction, cursor, limit));
             } else if (title != null) {
-                return ResponseEntity.ok(taskService.searchByTitle(title, sortField, direction));
+                return ResponseEntity.ok(taskService.searchByTitle(title, sortField, direction, cursor, limit));
             } else {
-                return ResponseEntity.ok(taskService.searchByDescription(description, sortField, direction));
+                return ResponseEntity.ok(taskService.searchByDescription(description, sortField, direction, cursor, limit));
             }
         }
     }
     @GetMapping("/filter")
-    public ResponseEntity<List<Task>> listByStatus(@RequestParam(required=false) String status,
+    public ResponseEntity<CursorPage<Task>> listByStatus(@RequestParam(required=false) String status,
+                                           @RequestParam(required=false) String cursor,
+                                           @RequestParam(required=false, defaultValue = DEFAULT_PAGE_SIZE) int limit,
                                            @AuthenticationPrincipal UserDetails user) {
-        if (status != null) return ResponseEntity.ok(taskService.findByStatus(Status.valueOf(status)));
-        return ResponseEntity.ok(taskService.findByUser(user.getUsername()));
+        checkLimit(limit);
+        if (status != null) return ResponseEntity.ok(taskService.findByStatus(Status.valueOf(status), cursor, limit));
+        return ResponseEntity.ok(taskService.findByUser(user.getUsername(), cursor, limit));
     }
     @PutMapping("/{id}/complete")
     public ResponseEntity<Task> complete(@PathVariable String id, @AuthenticationPrincipal UserDetails userDetails) {
         return ResponseEntity.ok(taskService.completeTask(id, userDetails.getUsername()));
     }
+    @Operation(
+        summary = "Claim the next task",
+        description = "Atomically assign the caller the highest-priority, earliest-due unassigned task matching the filters"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Task claimed",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Task.class))
+        ),
+        @ApiResponse(
+            responseCode = "204",
+            description = "No unassigned task matches",
+            content = @Content
+        )
+    })
+    @PostMapping("/claim-next")
+    public ResponseEntity<Task> claimNext(
+            @Parameter(description = "Words that must each appear in the title, ignoring case")
+            @RequestParam(required = false) String title,
+
+            @Parameter(description = "Only claim tasks with this priority")
+            @RequestParam(required = false) Priority priority,
+
+            @Parameter(description = "Username of the task creator")
+            @RequestParam(required = false) String createdBy,
+
+            @Parameter(description = "Only claim tasks due before this instant (ISO-8601)")
+            @RequestParam(required = false) Instant dueBefore,
+
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetails userDetails) {
+        TaskFilter.TaskFilterBuilder filter = TaskFilter.builder()
+                .title(title)
+                .createdBy(createdBy)
+                .dueBefore(dueBefore);
+        return taskService.claimNext(filter, priority, userDetails.getUsername())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
     @PutMapping("/{id}/assign/{userId}")
     public ResponseEntity<Task> assign(@PathVariable String id, 
                                      @PathVariable String userId,
@@ -237,4 +441,19 @@ public class TaskController {
         taskService.deleteTask(id, userDetails.getUsername());
         return ResponseEntity.noContent().build();
     }
+
+    private SortDirection parseSortDirection(String sortDir) {
+        try {
+            return SortDirection.valueOf(sortDir.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Sort direction must be 'ASC' or 'DESC'");
+        }
+    }
+
+    private int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
 }
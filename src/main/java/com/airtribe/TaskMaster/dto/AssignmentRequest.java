@@ -0,0 +1,13 @@
+package com.airtribe.TaskMaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentRequest {
+    private String taskId;
+    private String userId;
+}
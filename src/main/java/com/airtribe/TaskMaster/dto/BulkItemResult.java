@@ -0,0 +1,26 @@
+package com.airtribe.TaskMaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a bulk request. {@code index} is the item's position in the request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+    private int index;
+    private String id;
+    private boolean success;
+    private String error;
+
+    public static BulkItemResult succeeded(int index, String id) {
+        return new BulkItemResult(index, id, true, null);
+    }
+
+    public static BulkItemResult failed(int index, String id, String error) {
+        return new BulkItemResult(index, id, false, error);
+    }
+}
@@ -0,0 +1,24 @@
+package com.airtribe.TaskMaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of a bulk request: one result per request item, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResult {
+    private int succeeded;
+    private int failed;
+    private List<BulkItemResult> results;
+
+    public static BulkResult of(List<BulkItemResult> results) {
+        int succeeded = (int) results.stream().filter(BulkItemResult::isSuccess).count();
+        return new BulkResult(succeeded, results.size() - succeeded, results);
+    }
+}
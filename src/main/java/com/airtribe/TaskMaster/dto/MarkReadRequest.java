@@ -0,0 +1,14 @@
+package com.airtribe.TaskMaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarkReadRequest {
+    private List<String> ids;
+}
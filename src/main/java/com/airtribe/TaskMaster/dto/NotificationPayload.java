@@ -0,0 +1,90 @@
+package com.airtribe.TaskMaster.dto;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The body of a notification push, one record per kind of push. Jackson writes the kind as
+ * the {@code type} property, so clients see the same JSON as before. Timestamps are epoch
+ * milliseconds; {@code dueDate}, {@code completedAt} and {@code assignedAt} are ISO-8601.
+ * Pushes of stored notifications carry the notification's per-user {@code seq}, which a
+ * reconnecting client passes back to get the pushes it missed.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(NotificationPayload.TaskAssigned.class),
+        @JsonSubTypes.Type(NotificationPayload.TasksAssigned.class),
+        @JsonSubTypes.Type(NotificationPayload.TaskUpdated.class),
+        @JsonSubTypes.Type(NotificationPayload.TaskCompleted.class),
+        @JsonSubTypes.Type(NotificationPayload.Digest.class),
+        @JsonSubTypes.Type(NotificationPayload.NotificationsRead.class),
+        @JsonSubTypes.Type(NotificationPayload.DeliveryChanged.class)
+})
+public sealed interface NotificationPayload {
+
+    String userId();
+
+    long timestamp();
+
+    /** The notification's per-user sequence number, null for pushes that are not stored notifications */
+    Long seq();
+
+    @JsonTypeName("TASK_ASSIGNED")
+    record TaskAssigned(String message, String userId, String taskId, String taskTitle, String assignedBy,
+                        Instant dueDate, String taskPriority, long timestamp, String notificationId, Long seq,
+                        boolean read) implements NotificationPayload {
+    }
+
+    /** Several tasks assigned in one request, announced by one notification */
+    @JsonTypeName("TASK_ASSIGNED")
+    record TasksAssigned(String message, String userId, String taskId, List<String> taskIds, int taskCount,
+                         String assignedBy, long timestamp, String notificationId, Long seq,
+                         boolean read) implements NotificationPayload {
+    }
+
+    @JsonTypeName("TASK_UPDATED")
+    record TaskUpdated(String message, String userId, String taskId, String taskTitle, String taskPriority,
+                       String assignedTo, String assignedBy, Instant dueDate, String status, int changeCount,
+                       long timestamp, String notificationId, Long seq, boolean read) implements NotificationPayload {
+    }
+
+    @JsonTypeName("TASK_COMPLETED")
+    record TaskCompleted(String message, String userId, String taskId, String taskTitle, String completedBy,
+                         Instant completedAt, Instant assignedAt, Instant dueDate, String taskPriority,
+                         long timestamp, String notificationId, Long seq, boolean read) implements NotificationPayload {
+    }
+
+    @JsonTypeName("DIGEST")
+    record Digest(String message, String userId, Map<String, Integer> counts, int total, List<String> taskIds,
+                  long since, long timestamp, String notificationId, Long seq,
+                  boolean read) implements NotificationPayload {
+    }
+
+    /**
+     * Notifications marked read in another session; not a stored notification. Carries
+     * either the IDs that were marked or the cursor they were marked up to, which is null
+     * when all of them were.
+     */
+    @JsonTypeName("NOTIFICATIONS_READ")
+    record NotificationsRead(String userId, int count, List<String> notificationIds, String upTo,
+                             long timestamp) implements NotificationPayload {
+        @Override
+        public Long seq() {
+            return null;
+        }
+    }
+
+    /** The user switched between instant notifications and digests; not a stored notification */
+    @JsonTypeName("DELIVERY_CHANGED")
+    record DeliveryChanged(String userId, String delivery, long timestamp) implements NotificationPayload {
+        @Override
+        public Long seq() {
+            return null;
+        }
+    }
+}
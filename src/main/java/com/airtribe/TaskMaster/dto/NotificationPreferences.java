@@ -0,0 +1,13 @@
+package com.airtribe.TaskMaster.dto;
+
+import com.airtribe.TaskMaster.entity.NotificationDelivery;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPreferences {
+    private NotificationDelivery delivery;
+}
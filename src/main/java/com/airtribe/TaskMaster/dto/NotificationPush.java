@@ -0,0 +1,17 @@
+package com.airtribe.TaskMaster.dto;
+
+/**
+ * A push on its way to a user's sessions, as carried between instances by the notification
+ * bus.
+ * @param origin The instance that published it, set by buses that span several
+ * @param notificationId Null for pushes that are not stored notifications
+ * @param seq The notification's per-user sequence number, null like the ID
+ * @param payload The push as JSON, exactly as the client receives it
+ */
+public record NotificationPush(String origin, String userId, String notificationId, Long seq, String destination,
+                               String payload) {
+
+    public NotificationPush withOrigin(String origin) {
+        return new NotificationPush(origin, userId, notificationId, seq, destination, payload);
+    }
+}
@@ -0,0 +1,26 @@
+package com.airtribe.TaskMaster.dto;
+
+import com.airtribe.TaskMaster.entity.Notification;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * What a reconnecting client missed since the last sequence number it saw. Either
+ * {@code pushes} holds the pushes themselves, as they were sent, or {@code missed} holds
+ * the notifications as inbox items when the pushes are no longer buffered. If too much was
+ * missed for either, {@code resync} is set and the client should reload its inbox.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationReplay {
+    /** JSON array of the original pushes, oldest first */
+    @JsonRawValue
+    private String pushes;
+    private List<Notification> missed;
+    private boolean resync;
+}
@@ -0,0 +1,91 @@
+package com.airtribe.TaskMaster.dto;
+
+import com.airtribe.TaskMaster.entity.SortDirection;
+import com.airtribe.TaskMaster.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page: the value of the sort key and the row ID
+ * used as tie-breaker. Sent to clients as an opaque URL-safe token.
+ */
+@Getter
+@AllArgsConstructor
+public class PageCursor {
+    private static final String SEPARATOR = "\u0000";
+
+    private final String sortField;
+    private final SortDirection direction;
+    /** String form of the sort key, or null when the row's key is null */
+    private final String value;
+    private final String id;
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, sortField, direction.name(), value == null ? "n" : "v" + value, id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The sort key as a timestamp, for orderings by one.
+     * @throws BadRequestException if the cursor does not hold one, because it was tampered with
+     */
+    public Instant instantValue() {
+        if (value == null) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * The sort key as a number, for the relevance ordering.
+     * @throws BadRequestException if the cursor does not hold one, because it was tampered with
+     */
+    public double doubleValue() {
+        if (value == null) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            String value = parts[2].startsWith("v") ? parts[2].substring(1) : null;
+            return new PageCursor(parts[0], SortDirection.valueOf(parts[1]), value, parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Decode a cursor and check it was issued for the same ordering.
+     * @return the cursor, or null if no token was given
+     */
+    public static PageCursor decode(String token, String sortField, SortDirection direction) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        PageCursor cursor = decode(token);
+        if (!cursor.getSortField().equals(sortField) || cursor.getDirection() != direction) {
+            throw new BadRequestException("Cursor was issued for a different sort order");
+        }
+        return cursor;
+    }
+}
@@ -5,10 +5,19 @@ import lombok.*;
 import java.time.Instant;
 
 @Entity
+@Table(indexes = {
+        // inbox pages: all notifications, and unread ones only, newest first
+        @Index(name = "idx_notification_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_notification_user_read_created", columnList = "user_id, is_read, created_at, id"),
+        // replay of the pushes a user missed, by sequence number
+        @Index(name = "idx_notification_user_seq", columnList = "user_id, seq"),
+        // retention purges, oldest first per read state
+        @Index(name = "idx_notification_read_created", columnList = "is_read, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Getter
 @Setter
 public class Notification {
@@ -26,6 +35,9 @@ public class Notification {
     @Column(name = "is_read")
     private boolean isRead;
     private Instant createdAt;
+
+    /** Increases with every notification of the same user; null on rows written before it existed */
+    private Long seq;
     
     @PrePersist
     void prePersist() {
@@ -0,0 +1,8 @@
+package com.airtribe.TaskMaster.entity;
+
+public enum NotificationDelivery {
+    /** Every notification is stored and pushed as it happens */
+    INSTANT,
+    /** Notifications are summarized into one digest per interval */
+    DIGEST
+}
@@ -0,0 +1,64 @@
+package com.airtribe.TaskMaster.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/**
+ * A notification push waiting to be delivered. Rows are written in the transaction that
+ * creates the notification and deleted once the push went out, so a push is never sent
+ * for a rolled back notification and never lost once that transaction committed. The
+ * notification row itself is written behind, after the commit, and is lost if the
+ * process dies before the writer inserts it; the push still goes out.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_notification_outbox_due", columnList = "attempts, next_attempt_at, id"),
+        @Index(name = "idx_notification_outbox_user", columnList = "user_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationOutbox {
+    /** Sequential so that pushes to the same user go out in the order they were written */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "notification_id")
+    private String notificationId;
+
+    /** The notification's per-user sequence number, null for pushes that are not stored notifications */
+    private Long seq;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private String destination;
+
+    /** The JSON message body */
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    private int attempts;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @PrePersist
+    void prePersist() {
+        createdAt = Instant.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
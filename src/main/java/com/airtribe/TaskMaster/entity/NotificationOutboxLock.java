@@ -0,0 +1,20 @@
+package com.airtribe.TaskMaster.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * The single row an instance locks to drain the notification outbox, so instances take
+ * turns and never deliver the same push twice or a user's pushes out of order.
+ */
+@Entity
+@Table(name = "notification_outbox_lock")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutboxLock {
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+}
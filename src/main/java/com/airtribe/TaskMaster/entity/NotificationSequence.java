@@ -0,0 +1,23 @@
+package com.airtribe.TaskMaster.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * The last notification sequence number handed out to a user. Incremented in the
+ * transaction that writes the notification, so every instance numbers a user's
+ * notifications from the same counter.
+ */
+@Entity
+@Table(name = "notification_sequence")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationSequence {
+    @Id
+    @Column(name = "user_id")
+    private String userId;
+
+    @Column(nullable = false)
+    private long seq;
+}
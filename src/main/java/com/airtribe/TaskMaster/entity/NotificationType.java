@@ -3,5 +3,6 @@ package com.airtribe.TaskMaster.entity;
 public enum NotificationType {
     TASK_ASSIGNED,
     TASK_UPDATED,
-    TASK_COMPLETED
+    TASK_COMPLETED,
+    DIGEST
 }
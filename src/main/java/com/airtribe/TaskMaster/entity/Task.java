@@ -5,11 +5,21 @@ import lombok.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "task")  // Explicitly specify the table name
+@Table(name = "task",  // Explicitly specify the table name
+       indexes = {
+        // One index per sortable column for keyset pages, see TaskSortField; description is too long to index
+        @Index(name = "idx_task_deleted_created_at", columnList = "deleted, created_at, id"),
+        @Index(name = "idx_task_deleted_updated_at", columnList = "deleted, updated_at, id"),
+        @Index(name = "idx_task_deleted_due_date", columnList = "deleted, due_date, id"),
+        @Index(name = "idx_task_deleted_title", columnList = "deleted, title, id"),
+        // Common filter shapes: "my tasks" and "by priority, soonest due first"
+        @Index(name = "idx_task_created_by", columnList = "created_by, deleted, created_at, id"),
+        @Index(name = "idx_task_priority_due_date", columnList = "priority, deleted, due_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Task {
     @Id @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
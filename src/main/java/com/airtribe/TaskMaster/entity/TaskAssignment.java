@@ -5,7 +5,13 @@ import lombok.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "task_assignments")
+@Table(name = "task_assignments", indexes = {
+        @Index(name = "idx_task_assignments_assignee_status", columnList = "assigned_to, status, assigned_at"),
+        @Index(name = "idx_task_assignments_status_task", columnList = "status, task_id")
+}, uniqueConstraints = {
+        // At most one active assignment per task, see activeSlot
+        @UniqueConstraint(name = "uk_task_assignments_active_slot", columnNames = "active_slot")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,8 +37,21 @@ public class TaskAssignment {
     @Enumerated(EnumType.STRING)
     private Status status;
 
+    /**
+     * The task ID while the assignment is active (PENDING), null otherwise. The unique
+     * constraint on this column is what keeps a task from having two active assignments.
+     */
+    @Column(name = "active_slot")
+    private String activeSlot;
+
     @PrePersist
     void prePersist() {
         assignedAt = Instant.now();
+        updateActiveSlot();
+    }
+
+    @PreUpdate
+    void updateActiveSlot() {
+        activeSlot = status == Status.PENDING && task != null ? task.getId() : null;
     }
 }
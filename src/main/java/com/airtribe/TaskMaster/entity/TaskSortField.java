@@ -0,0 +1,75 @@
+package com.airtribe.TaskMaster.entity;
+
+import com.airtribe.TaskMaster.exception.BadRequestException;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Whitelist of task columns that listings can be ordered (and keyset-paginated) by.
+ * Each one except DESCRIPTION is backed by a (deleted, column, id) index on the task table.
+ * A 2000-character description is past MySQL's index key length, so ordering by it sorts
+ * the filtered rows instead of walking an index.
+ */
+public enum TaskSortField {
+    CREATED_AT("createdAt", Task::getCreatedAt, Instant::parse),
+    UPDATED_AT("updatedAt", Task::getUpdatedAt, Instant::parse),
+    DUE_DATE("dueDate", Task::getDueDate, Instant::parse),
+    TITLE("title", Task::getTitle, value -> value),
+    DESCRIPTION("description", Task::getDescription, value -> value);
+
+    private final String property;
+    private final Function<Task, Object> extractor;
+    private final Function<String, Object> parser;
+
+    TaskSortField(String property, Function<Task, Object> extractor, Function<String, Object> parser) {
+        this.property = property;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Resolve a request parameter to a sort field, defaulting to createdAt
+     * @throws BadRequestException if the field is not sortable
+     */
+    public static TaskSortField from(String property) {
+        if (property == null) {
+            return CREATED_AT;
+        }
+        for (TaskSortField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new BadRequestException("Cannot sort by '" + property + "', use one of: " + Arrays.stream(values())
+                .map(TaskSortField::getProperty)
+                .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * The task's sort key in the string form stored in cursors, or null if the key is null
+     */
+    public String valueOf(Task task) {
+        Object value = extractor.apply(task);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Parse a sort key in the form {@link #valueOf} writes it
+     * @throws BadRequestException if it is not one, because the cursor was tampered with
+     */
+    public Object parse(String value) {
+        try {
+            return value == null ? null : parser.apply(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+}
@@ -34,6 +34,12 @@ public class User implements org.springframework.security.core.userdetails.UserD
     @Enumerated(EnumType.STRING)
     private Set<Role> roles;
 
+    /** How notifications reach the user; null for accounts created before digests existed means INSTANT */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "notification_delivery")
+    @Builder.Default
+    private NotificationDelivery notificationDelivery = NotificationDelivery.INSTANT;
+
     // Implementation of UserDetails methods
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
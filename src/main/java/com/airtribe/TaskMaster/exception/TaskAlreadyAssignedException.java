@@ -6,6 +6,8 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(code = HttpStatus.CONFLICT, reason = "Task is already assigned")
 public class TaskAlreadyAssignedException extends RuntimeException {
     public TaskAlreadyAssignedException(String taskId, String assignedTo) {
-        super(String.format("Task %s is currently assigned to user %s and must be completed first", taskId, assignedTo));
+        super(assignedTo == null
+                ? String.format("Task %s is currently assigned and must be completed first", taskId)
+                : String.format("Task %s is currently assigned to user %s and must be completed first", taskId, assignedTo));
     }
 }
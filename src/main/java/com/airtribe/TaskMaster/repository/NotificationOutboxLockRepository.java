@@ -0,0 +1,19 @@
+package com.airtribe.TaskMaster.repository;
+
+import com.airtribe.TaskMaster.entity.NotificationOutboxLock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface NotificationOutboxLockRepository extends JpaRepository<NotificationOutboxLock, Integer> {
+    /**
+     * Lock the row until the end of the transaction, waiting for whoever holds it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM NotificationOutboxLock l WHERE l.id = :id")
+    Optional<NotificationOutboxLock> lock(@Param("id") int id);
+}
@@ -0,0 +1,44 @@
+package com.airtribe.TaskMaster.repository;
+
+import com.airtribe.TaskMaster.entity.NotificationOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+    /**
+     * Pushes that are due for (another) delivery attempt, oldest first. A push is held back
+     * while an earlier one to the same user waits for its retry, so no push overtakes a
+     * failed one, whether it was written before or after the failure.
+     */
+    @Query("""
+            SELECT o FROM NotificationOutbox o
+            WHERE o.attempts < :maxAttempts AND o.nextAttemptAt <= :now
+              AND NOT EXISTS (SELECT 1 FROM NotificationOutbox earlier
+                              WHERE earlier.userId = o.userId AND earlier.id < o.id
+                                AND earlier.attempts < :maxAttempts AND earlier.nextAttemptAt > :now)
+            ORDER BY o.id
+            """)
+    List<NotificationOutbox> findDue(@Param("maxAttempts") int maxAttempts, @Param("now") Instant now,
+                                     Pageable pageable);
+
+    /**
+     * Make the pushes due again at the given time. Used to hold pushes back from every
+     * dispatcher, this one included, while they are being sent and until their retry.
+     */
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.nextAttemptAt = :at WHERE o.id IN :ids")
+    int reschedule(@Param("ids") Collection<Long> ids, @Param("at") Instant at);
+
+    /**
+     * The oldest push that has not been delivered or given up on yet.
+     */
+    Optional<NotificationOutbox> findFirstByAttemptsLessThanOrderByIdAsc(int maxAttempts);
+}
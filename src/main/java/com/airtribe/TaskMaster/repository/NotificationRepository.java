@@ -1,10 +1,94 @@
 package com.airtribe.TaskMaster.repository;
 
 import com.airtribe.TaskMaster.entity.Notification;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface NotificationRepository extends JpaRepository<Notification, String> {
-    List<Notification> findByUserIdOrderByCreatedAtDesc(String userId);
-    List<Notification> findByUserIdAndIsReadOrderByCreatedAtDesc(String userId, boolean isRead);
+    List<Notification> findByUserIdOrderByCreatedAtDescIdAsc(String userId, Limit limit);
+    List<Notification> findByUserIdAndSeqGreaterThanOrderBySeqAsc(String userId, long seq, Limit limit);
+    long countByUserIdAndIsRead(String userId, boolean isRead);
+
+    /** Retention: the oldest notifications in a read state created before the cutoff */
+    List<Notification> findByIsReadAndCreatedAtBeforeOrderByCreatedAtAscIdAsc(boolean isRead, Instant cutoff, Limit limit);
+    Optional<Notification> findFirstByIsReadAndCreatedAtBeforeOrderByCreatedAtAsc(boolean isRead, Instant cutoff);
+
+    /**
+     * A page of a user's notifications created after {@code since}, newest first, starting
+     * after the given (createdAt, id) position.
+     */
+    @Query("SELECT n FROM Notification n " +
+           "WHERE n.userId = :userId AND n.createdAt > :since " +
+           "AND (n.createdAt < :beforeCreatedAt OR (n.createdAt = :beforeCreatedAt AND n.id > :afterId)) " +
+           "ORDER BY n.createdAt DESC, n.id")
+    List<Notification> findPageByUserId(@Param("userId") String userId,
+                                        @Param("since") Instant since,
+                                        @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                        @Param("afterId") String afterId,
+                                        Limit limit);
+
+    /**
+     * Same as {@link #findPageByUserId}, restricted to notifications with the given read state.
+     */
+    @Query("SELECT n FROM Notification n " +
+           "WHERE n.userId = :userId AND n.isRead = :isRead AND n.createdAt > :since " +
+           "AND (n.createdAt < :beforeCreatedAt OR (n.createdAt = :beforeCreatedAt AND n.id > :afterId)) " +
+           "ORDER BY n.createdAt DESC, n.id")
+    List<Notification> findPageByUserIdAndIsRead(@Param("userId") String userId,
+                                                 @Param("isRead") boolean isRead,
+                                                 @Param("since") Instant since,
+                                                 @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                                 @Param("afterId") String afterId,
+                                                 Limit limit);
+
+    /**
+     * A user's notifications created after the given (createdAt, id) position, oldest first.
+     */
+    @Query("SELECT n FROM Notification n " +
+           "WHERE n.userId = :userId " +
+           "AND (n.createdAt > :afterCreatedAt OR (n.createdAt = :afterCreatedAt AND n.id > :afterId)) " +
+           "ORDER BY n.createdAt, n.id")
+    List<Notification> findByUserIdAfter(@Param("userId") String userId,
+                                         @Param("afterCreatedAt") Instant afterCreatedAt,
+                                         @Param("afterId") String afterId,
+                                         Limit limit);
+
+    /**
+     * The IDs among the given ones that are the user's and still unread, locked until the
+     * transaction ends so the UPDATE that follows changes exactly these.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n.id FROM Notification n WHERE n.userId = :userId AND n.isRead = false AND n.id IN :ids")
+    List<String> lockUnreadIdsByUserIdAndIdIn(@Param("userId") String userId, @Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true " +
+           "WHERE n.userId = :userId AND n.isRead = false AND n.id IN :ids")
+    int markReadByUserIdAndIdIn(@Param("userId") String userId, @Param("ids") Collection<String> ids);
+
+    /**
+     * Mark read the user's unread notifications from the newest down to and including the
+     * given (createdAt, id) position, in inbox order.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true " +
+           "WHERE n.userId = :userId AND n.isRead = false " +
+           "AND (n.createdAt > :upToCreatedAt OR (n.createdAt = :upToCreatedAt AND n.id <= :upToId))")
+    int markReadByUserIdUpTo(@Param("userId") String userId,
+                             @Param("upToCreatedAt") Instant upToCreatedAt,
+                             @Param("upToId") String upToId);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false")
+    int markAllReadByUserId(@Param("userId") String userId);
 }
@@ -0,0 +1,59 @@
+package com.airtribe.TaskMaster.repository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The matching rules of task search, shared by the search index and the SQL that stands in
+ * for it.
+ *
+ * Text is split into words on anything that is not a letter or digit, and folded to lower
+ * case without accents, so "Réview" and "review" are the same word. A search term matches
+ * a text when every one of its words is the start of some word of the text: "rev sec"
+ * matches "Security review" but not "Preview".
+ */
+public final class SearchText {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private SearchText() {
+    }
+
+    /**
+     * The folded words of the text, in order, or an empty list for blank text.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Texts the search term matches. A term without any word matches nothing.
+     */
+    public static Predicate<String> matcher(String term) {
+        List<String> words = tokenize(term);
+        if (words.isEmpty()) {
+            return text -> false;
+        }
+        return text -> {
+            List<String> tokens = tokenize(text);
+            return words.stream().allMatch(word -> tokens.stream().anyMatch(token -> token.startsWith(word)));
+        };
+    }
+}
@@ -8,6 +8,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+
 @Repository
 public interface TaskArchiveRepository extends JpaRepository<TaskArchive, String> {
     boolean existsByTask(Task task);
@@ -18,4 +21,22 @@ public interface TaskArchiveRepository extends JpaRepository<TaskArchive, String
     @Modifying
     @Query("DELETE FROM TaskArchive ta WHERE ta.task = :task")
     void deleteByTask(@Param("task") Task task);
+
+    /**
+     * Archive the given assignments in one insert-select, computing time_taken_minutes in SQL.
+     * The archive row reuses the assignment ID. Callers lock the assignments first, see
+     * {@link TaskAssignmentRepository#lockPendingByTaskIdIn}.
+     * @param assignmentIds IDs of the assignments to archive
+     * @param completedBy Username of the user completing the tasks
+     * @param completedAt Completion time recorded on every archived row
+     * @return Number of assignments archived
+     */
+    @Modifying
+    @Query("INSERT INTO TaskArchive (id, task, completedBy, completedAt, assignedTo, assignedBy, assignedAt, timeTakenMinutes) " +
+           "SELECT ta.id, ta.task, :completedBy, :completedAt, ta.assignedTo, ta.assignedBy, ta.assignedAt, " +
+           "(:completedAt - ta.assignedAt) by minute " +
+           "FROM TaskAssignment ta WHERE ta.id IN :assignmentIds")
+    int archiveAssignments(@Param("assignmentIds") Collection<String> assignmentIds,
+                           @Param("completedBy") String completedBy,
+                           @Param("completedAt") Instant completedAt);
 }
@@ -3,16 +3,23 @@ package com.airtribe.TaskMaster.repository;
 import com.airtribe.TaskMaster.entity.Task;
 import com.airtribe.TaskMaster.entity.TaskAssignment;
 import com.airtribe.TaskMaster.entity.Status;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TaskAssignmentRepository extends JpaRepository<TaskAssignment, String> {
+public interface TaskAssignmentRepository extends JpaRepository<TaskAssignment, String>, TaskAssignmentRepositoryCustom {
     Optional<TaskAssignment> findFirstByTaskAndStatusOrderByAssignedAtDesc(Task task, Status status);
     
     /**
@@ -28,6 +35,75 @@ public interface TaskAssignmentRepository extends JpaRepository<TaskAssignment,
     @Query("SELECT ta FROM TaskAssignment ta WHERE ta.task = :task AND ta.status = 'PENDING'")
     Optional<TaskAssignment> findActiveAssignment(@Param("task") Task task);
 
+    /**
+     * Assignments in the given status for any of the given tasks, with their task initialized.
+     * Lets bulk operations check many tasks in one query instead of one per task.
+     */
+    @Query("SELECT ta FROM TaskAssignment ta JOIN FETCH ta.task t WHERE t.id IN :taskIds AND ta.status = :status")
+    List<TaskAssignment> findWithTaskByTaskIdInAndStatus(@Param("taskIds") Collection<String> taskIds,
+                                                         @Param("status") Status status);
+
+    /**
+     * Keyset page of a user's assignments in a given status together with their (non-deleted) tasks,
+     * most recent assignment first. Served by the (assigned_to, status, assigned_at) index and fetched
+     * in one query per page.
+     * @param assignedTo The assignee's user ID
+     * @param status The assignment status
+     * @param afterAssignedAt Assignment time of the last row of the previous page
+     * @param afterId Assignment ID of the last row of the previous page ("" for the first page)
+     * @param limit Maximum number of assignments to return
+     * @return Assignments with their task initialized
+     */
+    @Query("SELECT ta FROM TaskAssignment ta JOIN FETCH ta.task t " +
+           "WHERE ta.assignedTo = :assignedTo AND ta.status = :status AND t.deleted = false " +
+           "AND (ta.assignedAt < :afterAssignedAt OR (ta.assignedAt = :afterAssignedAt AND ta.id > :afterId)) " +
+           "ORDER BY ta.assignedAt DESC, ta.id")
+    List<TaskAssignment> findWithTaskByAssignedToAndStatusAfter(@Param("assignedTo") String assignedTo,
+                                                                @Param("status") Status status,
+                                                                @Param("afterAssignedAt") Instant afterAssignedAt,
+                                                                @Param("afterId") String afterId,
+                                                                Limit limit);
+
+    /**
+     * Keyset page of non-deleted tasks that have an assignment in the given status, ordered by task ID.
+     * Walks the (status, task_id) index from the last seen task ID, so every page costs the same.
+     * @param status The assignment status
+     * @param afterTaskId Task ID of the last row of the previous page ("" for the first page)
+     * @param limit Maximum number of tasks to return
+     * @return Tasks ordered by ID
+     */
+    @Query("SELECT DISTINCT t FROM TaskAssignment ta JOIN ta.task t " +
+           "WHERE ta.status = :status AND t.id > :afterTaskId AND t.deleted = false " +
+           "ORDER BY t.id")
+    List<Task> findTasksByStatusAfter(@Param("status") Status status,
+                                      @Param("afterTaskId") String afterTaskId,
+                                      Limit limit);
+
+    /**
+     * Lock the active (PENDING) assignments of the given tasks (SELECT ... FOR UPDATE) and return
+     * their keys. Concurrent completions of the same tasks queue here; the later one finds the
+     * assignments already gone.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ta.id AS id, ta.task.id AS taskId FROM TaskAssignment ta " +
+           "WHERE ta.task.id IN :taskIds AND ta.status = 'PENDING'")
+    List<AssignmentKey> lockPendingByTaskIdIn(@Param("taskIds") Collection<String> taskIds);
+
+    interface AssignmentKey {
+        String getId();
+        String getTaskId();
+    }
+
+    /**
+     * Fill active_slot for PENDING assignments created before the column existed
+     * @return Number of assignments updated
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE task_assignments SET active_slot = task_id WHERE status = 'PENDING' AND active_slot IS NULL",
+           nativeQuery = true)
+    int backfillActiveSlots();
+
     /**
      * Delete all assignments for a task
      */
@@ -0,0 +1,26 @@
+package com.airtribe.TaskMaster.repository;
+
+import com.airtribe.TaskMaster.entity.TaskAssignment;
+
+import java.util.List;
+
+public interface TaskAssignmentRepositoryCustom {
+
+    /**
+     * Atomically claim a task's active-assignment slot for a user.
+     * @param taskId The task to claim
+     * @param assignedTo The user the task is assigned to if the claim wins
+     * @param assignedBy The user making the assignment
+     * @return The new assignment if the claim won, otherwise the assignment that already holds the slot
+     */
+    TaskClaim claim(String taskId, String assignedTo, String assignedBy);
+
+    /**
+     * Claim many tasks at once, inserting in JDBC batches while no task is taken and falling
+     * back to {@link #claim} one assignment at a time when one is. Must run in a transaction.
+     * @param assignments New assignments; only their task, assignee and assigner are used
+     * @param batchSize Rows per JDBC batch
+     * @return One claim per assignment, in the same order
+     */
+    List<TaskClaim> claimAll(List<TaskAssignment> assignments, int batchSize);
+}
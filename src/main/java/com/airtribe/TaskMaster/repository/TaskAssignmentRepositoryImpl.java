@@ -0,0 +1,132 @@
+package com.airtribe.TaskMaster.repository;
+
+import com.airtribe.TaskMaster.entity.Status;
+import com.airtribe.TaskMaster.entity.TaskAssignment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claims a task by inserting a PENDING assignment whose active_slot is the task ID.
+ * The unique constraint on active_slot decides the race: exactly one insert succeeds and
+ * the others fail with a duplicate key, after which the current holder is read back.
+ * No rows are locked up front. An insert that collides with a claim that is not committed
+ * yet waits for that claim's transaction, as any unique index does, and fails once it
+ * commits; nothing else queues.
+ *
+ * The holder is read with a locking read ({@code FOR SHARE} on MySQL, {@code FOR UPDATE}
+ * elsewhere), which sees the latest committed row. A plain read would see the snapshot of
+ * a REPEATABLE READ transaction that already read assignments, which is MySQL's default,
+ * and miss the winner. If the holder is gone every time, because it kept completing
+ * between our insert and the read, the claim is reported lost with no known holder.
+ *
+ * Plain JDBC is used on purpose: a constraint violation raised by a Hibernate flush
+ * leaves the session unusable, while a failed JDBC insert leaves the surrounding
+ * transaction intact.
+ *
+ * {@link #claimAll} inserts in JDBC batches behind a savepoint. If any task turns out to
+ * be taken, the savepoint is rolled back, so no row of the batches is kept, and every
+ * assignment is claimed on its own instead.
+ */
+public class TaskAssignmentRepositoryImpl implements TaskAssignmentRepositoryCustom {
+    // The holder may complete the task between our failed insert and the read, so retry a few times
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String INSERT =
+            "INSERT INTO task_assignments (id, task_id, assigned_to, assigned_by, assigned_at, status, active_slot) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_HOLDER =
+            "SELECT id, assigned_to FROM task_assignments WHERE active_slot = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String selectHolder;
+
+    public TaskAssignmentRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public TaskClaim claim(String taskId, String assignedTo, String assignedBy) {
+        for (int attempt = 1; ; attempt++) {
+            String id = UUID.randomUUID().toString();
+            try {
+                jdbcTemplate.update(INSERT, id, taskId, assignedTo, assignedBy,
+                        OffsetDateTime.now(ZoneOffset.UTC), Status.PENDING.name(), taskId);
+                return new TaskClaim(true, id, assignedTo);
+            } catch (DuplicateKeyException e) {
+                List<TaskClaim> holder = jdbcTemplate.query(selectHolder(),
+                        (rs, row) -> new TaskClaim(false, rs.getString("id"), rs.getString("assigned_to")), taskId);
+                if (!holder.isEmpty()) {
+                    return holder.get(0);
+                }
+                if (attempt == MAX_ATTEMPTS) {
+                    return new TaskClaim(false, null, null);
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<TaskClaim> claimAll(List<TaskAssignment> assignments, int batchSize) {
+        if (assignments.isEmpty()) {
+            return List.of();
+        }
+        List<TaskClaim> claims = new ArrayList<>(assignments.size());
+        OffsetDateTime assignedAt = OffsetDateTime.now(ZoneOffset.UTC);
+        boolean inserted = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for (int i = 0; i < assignments.size(); i++) {
+                    TaskAssignment assignment = assignments.get(i);
+                    String id = UUID.randomUUID().toString();
+                    String taskId = assignment.getTask().getId();
+                    insert.setString(1, id);
+                    insert.setString(2, taskId);
+                    insert.setString(3, assignment.getAssignedTo());
+                    insert.setString(4, assignment.getAssignedBy());
+                    insert.setObject(5, assignedAt);
+                    insert.setString(6, Status.PENDING.name());
+                    insert.setString(7, taskId);
+                    insert.addBatch();
+                    claims.add(new TaskClaim(true, id, assignment.getAssignedTo()));
+                    if ((i + 1) % batchSize == 0 || i == assignments.size() - 1) {
+                        insert.executeBatch();
+                    }
+                }
+                connection.releaseSavepoint(savepoint);
+                return true;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                if (jdbcTemplate.getExceptionTranslator().translate("claimAll", INSERT, e) instanceof DuplicateKeyException) {
+                    return false;
+                }
+                throw e;
+            }
+        });
+        if (inserted) {
+            return claims;
+        }
+        // someone took one of the tasks since they were checked
+        return assignments.stream()
+                .map(assignment -> claim(assignment.getTask().getId(), assignment.getAssignedTo(), assignment.getAssignedBy()))
+                .toList();
+    }
+
+    private String selectHolder() {
+        if (selectHolder == null) {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            selectHolder = SELECT_HOLDER + ("MySQL".equalsIgnoreCase(database) ? " FOR SHARE" : " FOR UPDATE");
+        }
+        return selectHolder;
+    }
+}
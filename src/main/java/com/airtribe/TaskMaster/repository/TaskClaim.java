@@ -0,0 +1,17 @@
+package com.airtribe.TaskMaster.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of {@link TaskAssignmentRepositoryCustom#claim}: whether the caller won the task's
+ * active-assignment slot, and the assignment that holds it (the caller's or the winner's).
+ * A lost claim has no assignment ID or assignee when the holder could not be read back.
+ */
+@Getter
+@AllArgsConstructor
+public class TaskClaim {
+    private final boolean won;
+    private final String assignmentId;
+    private final String assignedTo;
+}
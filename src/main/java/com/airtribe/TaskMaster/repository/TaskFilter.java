@@ -0,0 +1,80 @@
+package com.airtribe.TaskMaster.repository;
+
+import com.airtribe.TaskMaster.dto.PageCursor;
+import com.airtribe.TaskMaster.entity.Priority;
+import com.airtribe.TaskMaster.entity.SortDirection;
+import com.airtribe.TaskMaster.entity.Status;
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.entity.TaskSortField;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * Criteria for a keyset page of tasks, see {@link TaskRepositoryCustom#findPage}.
+ * Criteria left null are not applied; the ones that are set are combined with AND.
+ */
+@Getter
+@Builder
+public class TaskFilter {
+    /**
+     * Search term for the title. The query requires every word of it somewhere in the title,
+     * ignoring case; {@link #textMatcher} applies the exact {@link SearchText} rules
+     */
+    private final String title;
+    /** Search term for the description, like {@link #title} */
+    private final String description;
+    /** Whether title and description must both match (true) or either one (false) */
+    private final boolean matchAll;
+    /** Restrict to these task IDs */
+    private final Collection<String> ids;
+    private final Priority priority;
+    /** Due on or after this instant */
+    private final Instant dueFrom;
+    /** Due strictly before this instant */
+    private final Instant dueBefore;
+    private final String createdBy;
+    /** Only tasks with an assignment in this status */
+    private final Status assignmentStatus;
+    /** Only tasks with an assignment to this user (in {@link #assignmentStatus}, if set) */
+    private final String assignedTo;
+    /** Deleted flag to match; null matches both */
+    @Builder.Default
+    private final Boolean deleted = false;
+
+    @Builder.Default
+    private final TaskSortField sortField = TaskSortField.CREATED_AT;
+    @Builder.Default
+    private final SortDirection direction = SortDirection.DESC;
+    /** Last row of the previous page, null for the first page */
+    private final PageCursor after;
+    private final int limit;
+
+    /**
+     * Whether the task matches the title and description criteria. The query only narrows
+     * tasks down to those containing every word somewhere; this applies the exact rules.
+     */
+    public Predicate<Task> textMatcher() {
+        Predicate<String> titleMatcher = title == null ? null : SearchText.matcher(title);
+        Predicate<String> descriptionMatcher = description == null ? null : SearchText.matcher(description);
+        if (titleMatcher == null && descriptionMatcher == null) {
+            return task -> true;
+        }
+        if (descriptionMatcher == null) {
+            return task -> titleMatcher.test(task.getTitle());
+        }
+        if (titleMatcher == null) {
+            return task -> descriptionMatcher.test(task.getDescription());
+        }
+        return matchAll
+                ? task -> titleMatcher.test(task.getTitle()) && descriptionMatcher.test(task.getDescription())
+                : task -> titleMatcher.test(task.getTitle()) || descriptionMatcher.test(task.getDescription());
+    }
+
+    public boolean hasText() {
+        return title != null || description != null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.airtribe.TaskMaster.repository;
+
+import com.airtribe.TaskMaster.entity.Task;
+
+import java.util.List;
+
+public interface TaskRepositoryCustom {
+    /**
+     * Find a keyset page of non-deleted tasks matching the filter, ordered by its sort
+     * field with the task ID as tie-breaker
+     * @param filter Criteria, ordering, position and limit
+     * @return At most {@code filter.limit} tasks following {@code filter.after}
+     */
+    List<Task> findPage(TaskFilter filter);
+
+    /**
+     * Find unassigned (no active assignment), non-deleted tasks matching the filter's criteria,
+     * earliest due first, for a caller that is about to claim one of them. On databases with
+     * {@code SKIP LOCKED} the rows are locked {@code FOR UPDATE SKIP LOCKED} until the end of
+     * the transaction, so concurrent callers get disjoint candidates; elsewhere they are read
+     * without locks and exclusivity rests on {@link TaskAssignmentRepositoryCustom#claim}.
+     * @param filter Criteria and limit; sorting and position are ignored
+     * @param withDueDate Whether to return tasks with a due date (true) or without one (false)
+     * @return At most {@code filter.limit} candidates
+     */
+    List<Task> findClaimCandidates(TaskFilter filter, boolean withDueDate);
+
+    /**
+     * Whether the database supports {@code SELECT ... FOR UPDATE SKIP LOCKED}
+     */
+    boolean supportsSkipLocked();
+}
@@ -0,0 +1,174 @@
+package com.airtribe.TaskMaster.repository;
+
+import com.airtribe.TaskMaster.dto.PageCursor;
+import com.airtribe.TaskMaster.entity.SortDirection;
+import com.airtribe.TaskMaster.entity.Task;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a {@link TaskFilter} into one JPQL statement with only the predicates that
+ * are set and a plain {@code ORDER BY column, id}, so the database can walk one of the
+ * task indexes instead of sorting the whole result. Instead of OFFSET the position is a
+ * "(sort key, id) after the cursor" predicate, so every page is an index range scan.
+ * Null keys sort lowest, as they do in MySQL and H2.
+ *
+ * Claim candidates (see {@link #findClaimCandidates}) share the same criteria.
+ */
+public class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean skipLocked;
+
+    @Override
+    public List<Task> findPage(TaskFilter filter) {
+        if (filter.getIds() != null && filter.getIds().isEmpty()) {
+            return List.of();
+        }
+        List<String> where = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        appendCriteria(filter, where, params);
+
+        String column = "t." + filter.getSortField().getProperty();
+        boolean ascending = filter.getDirection() == SortDirection.ASC;
+        PageCursor after = filter.getAfter();
+        if (after != null) {
+            where.add(keysetPredicate(column, ascending, after.getValue() == null));
+            params.put("afterId", after.getId());
+            if (after.getValue() != null) {
+                params.put("afterKey", filter.getSortField().parse(after.getValue()));
+            }
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT t FROM Task t");
+        if (!where.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        String direction = ascending ? " ASC" : " DESC";
+        jpql.append(" ORDER BY ").append(column).append(direction).append(", t.id").append(direction);
+
+        TypedQuery<Task> query = entityManager.createQuery(jpql.toString(), Task.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(filter.getLimit());
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Task> findClaimCandidates(TaskFilter filter, boolean withDueDate) {
+        List<String> where = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        appendCriteria(filter, where, params);
+        where.add(withDueDate ? "t.dueDate IS NOT NULL" : "t.dueDate IS NULL");
+        where.add("NOT EXISTS (SELECT 1 FROM TaskAssignment ta WHERE ta.activeSlot = t.id)");
+
+        TypedQuery<Task> query = entityManager.createQuery(
+                "SELECT t FROM Task t WHERE " + String.join(" AND ", where) + " ORDER BY t.dueDate, t.id", Task.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(filter.getLimit());
+        if (supportsSkipLocked()) {
+            query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+            query.setHint(AvailableSettings.JAKARTA_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED);
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public boolean supportsSkipLocked() {
+        if (skipLocked == null) {
+            skipLocked = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect().supportsSkipLocked();
+        }
+        return skipLocked;
+    }
+
+    private void appendCriteria(TaskFilter filter, List<String> where, Map<String, Object> params) {
+        if (filter.getDeleted() != null) {
+            where.add("t.deleted = :deleted");
+            params.put("deleted", filter.getDeleted());
+        }
+        List<String> text = new ArrayList<>();
+        if (filter.getTitle() != null) {
+            text.add(containsWords("t.title", "title", filter.getTitle(), params));
+        }
+        if (filter.getDescription() != null) {
+            text.add(containsWords("t.description", "description", filter.getDescription(), params));
+        }
+        if (!text.isEmpty()) {
+            where.add("(" + String.join(filter.isMatchAll() ? " AND " : " OR ", text) + ")");
+        }
+        if (filter.getIds() != null) {
+            where.add("t.id IN :ids");
+            params.put("ids", filter.getIds());
+        }
+        if (filter.getPriority() != null) {
+            where.add("t.priority = :priority");
+            params.put("priority", filter.getPriority());
+        }
+        if (filter.getDueFrom() != null) {
+            where.add("t.dueDate >= :dueFrom");
+            params.put("dueFrom", filter.getDueFrom());
+        }
+        if (filter.getDueBefore() != null) {
+            where.add("t.dueDate < :dueBefore");
+            params.put("dueBefore", filter.getDueBefore());
+        }
+        if (filter.getCreatedBy() != null) {
+            where.add("t.createdBy = :createdBy");
+            params.put("createdBy", filter.getCreatedBy());
+        }
+        if (filter.getAssignmentStatus() != null || filter.getAssignedTo() != null) {
+            StringBuilder exists = new StringBuilder("EXISTS (SELECT 1 FROM TaskAssignment ta WHERE ta.task = t");
+            if (filter.getAssignmentStatus() != null) {
+                exists.append(" AND ta.status = :assignmentStatus");
+                params.put("assignmentStatus", filter.getAssignmentStatus());
+            }
+            if (filter.getAssignedTo() != null) {
+                exists.append(" AND ta.assignedTo = :assignedTo");
+                params.put("assignedTo", filter.getAssignedTo());
+            }
+            where.add(exists.append(")").toString());
+        }
+    }
+
+    /**
+     * Every word of the term somewhere in the column, a superset of what the term matches
+     * by {@link SearchText}; {@link TaskFilter#textMatcher} narrows it down. The words are
+     * folded, so accented text is only found where the collation ignores accents, as
+     * MySQL's default one does.
+     */
+    private static String containsWords(String column, String name, String term, Map<String, Object> params) {
+        List<String> words = SearchText.tokenize(term);
+        if (words.isEmpty()) {
+            return "1 = 0";
+        }
+        List<String> predicates = new ArrayList<>(words.size());
+        for (int i = 0; i < words.size(); i++) {
+            predicates.add("LOWER(" + column + ") LIKE :" + name + i);
+            params.put(name + i, "%" + words.get(i) + "%");
+        }
+        return "(" + String.join(" AND ", predicates) + ")";
+    }
+
+    private String keysetPredicate(String column, boolean ascending, boolean nullKey) {
+        if (ascending) {
+            return nullKey
+                    ? "((" + column + " IS NULL AND t.id > :afterId) OR " + column + " IS NOT NULL)"
+                    : "(" + column + " > :afterKey OR (" + column + " = :afterKey AND t.id > :afterId))";
+        }
+        return nullKey
+                ? "(" + column + " IS NULL AND t.id < :afterId)"
+                : "(" + column + " < :afterKey OR (" + column + " = :afterKey AND t.id < :afterId) OR " + column + " IS NULL)";
+    }
+}
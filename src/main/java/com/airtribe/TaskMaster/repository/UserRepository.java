@@ -1,11 +1,33 @@
 package com.airtribe.TaskMaster.repository;
 
+import com.airtribe.TaskMaster.entity.NotificationDelivery;
 import com.airtribe.TaskMaster.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Which of the given user IDs exist, in one query and without loading the users (or their roles)
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT u.id FROM User u WHERE u.notificationDelivery = :delivery")
+    List<String> findIdsByNotificationDelivery(@Param("delivery") NotificationDelivery delivery);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.notificationDelivery = :delivery WHERE u.id = :id")
+    int updateNotificationDelivery(@Param("id") String id, @Param("delivery") NotificationDelivery delivery);
+}
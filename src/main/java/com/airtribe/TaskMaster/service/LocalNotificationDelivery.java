@@ -0,0 +1,105 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPush;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hands a push that arrived over the {@link NotificationBus} to what this instance holds:
+ * the user's STOMP sessions, their Server-Sent Events streams through
+ * {@link NotificationStream}, and the {@link NotificationReplayBuffer} for clients that
+ * reconnect here. Users without an open STOMP session, as far as {@link PresenceRegistry}
+ * knows, get no WebSocket push at all, so no message is built or routed for them.
+ *
+ * A push that another instance published also means that instance changed state this one
+ * caches, the user's inbox or delivery preference. Such pushes are published as a
+ * {@link RemotePush} event for the caches to catch up, and a {@link Resync} event is
+ * published after pushes may have been missed altogether.
+ *
+ * Metrics: {@code taskmaster.notifications.delivery.local}, tagged sent or offline.
+ */
+@Component
+public class LocalNotificationDelivery {
+
+    /** A push published by another instance, after it was delivered here */
+    public record RemotePush(NotificationPush push) {
+    }
+
+    /** Pushes of other instances may have been missed; what was cached from them must be reloaded */
+    public record Resync() {
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationStream notificationStream;
+    private final NotificationReplayBuffer replayBuffer;
+    private final PresenceRegistry presenceRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter sent;
+    private final Counter offline;
+
+    public LocalNotificationDelivery(SimpMessagingTemplate messagingTemplate,
+                                     NotificationStream notificationStream,
+                                     NotificationReplayBuffer replayBuffer,
+                                     PresenceRegistry presenceRegistry,
+                                     ApplicationEventPublisher eventPublisher,
+                                     MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.notificationStream = notificationStream;
+        this.replayBuffer = replayBuffer;
+        this.presenceRegistry = presenceRegistry;
+        this.eventPublisher = eventPublisher;
+        this.sent = meterRegistry.counter("taskmaster.notifications.delivery.local", "result", "sent");
+        this.offline = meterRegistry.counter("taskmaster.notifications.delivery.local", "result", "offline");
+    }
+
+    /**
+     * @param remote Whether another instance published the push
+     */
+    public void deliver(NotificationPush push, boolean remote) {
+        if (presenceRegistry.isOnline(push.userId())) {
+            messagingTemplate.send(push.destination(), encoded(push.payload()));
+            sent.increment();
+        } else {
+            offline.increment();
+        }
+        notificationStream.publish(push.userId(), push.notificationId(), push.payload());
+        if (push.seq() != null) {
+            replayBuffer.delivered(push.userId(), push.seq(), push.payload());
+        }
+        if (remote) {
+            eventPublisher.publishEvent(new RemotePush(push));
+        }
+    }
+
+    /**
+     * Forget the buffered pushes, after this instance may have missed some, so reconnecting
+     * clients are caught up from the database instead of from a buffer with gaps, and have
+     * the caches reload what other instances may have changed meanwhile.
+     */
+    public void reset() {
+        replayBuffer.clear();
+        eventPublisher.publishEvent(new Resync());
+    }
+
+    /**
+     * The payload as an already encoded JSON message, which the template passes to the
+     * broker as is instead of converting it.
+     */
+    private static Message<byte[]> encoded(String payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        // lets the template add the destination without copying the headers
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), headers.getMessageHeaders());
+    }
+}
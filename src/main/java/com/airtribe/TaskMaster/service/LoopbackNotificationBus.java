@@ -0,0 +1,25 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPush;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * The bus of a single instance: pushes are delivered locally, on the publishing thread, so
+ * a failed send fails the publish and is retried by the dispatcher.
+ */
+@Component
+@ConditionalOnProperty(name = "taskmaster.notifications.bus.type", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackNotificationBus implements NotificationBus {
+
+    private final LocalNotificationDelivery localDelivery;
+
+    public LoopbackNotificationBus(LocalNotificationDelivery localDelivery) {
+        this.localDelivery = localDelivery;
+    }
+
+    @Override
+    public void publish(NotificationPush push) {
+        localDelivery.deliver(push, false);
+    }
+}
@@ -0,0 +1,22 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPush;
+
+/**
+ * Carries notification pushes to every instance of the application, each of which hands
+ * them to {@link LocalNotificationDelivery} for the sessions and streams it holds. A user
+ * connected to any instance gets the push, whichever instance dispatched it.
+ *
+ * Chosen with {@code taskmaster.notifications.bus.type}: {@code loopback} (the default)
+ * delivers in-process for a single instance, {@code relay} goes through a
+ * {@link NotificationRelayHub}.
+ */
+public interface NotificationBus {
+
+    /**
+     * Deliver the push on every instance, this one included.
+     * @throws com.airtribe.TaskMaster.exception.NotificationException If it could not be
+     *         handed over; the dispatcher retries it
+     */
+    void publish(NotificationPush push);
+}
@@ -0,0 +1,141 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.NotificationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Collapses bursts of notifications about the same thing into one.
+ *
+ * Notifications are keyed by user, task and type. The first one for a key opens a window
+ * of {@code window}; every further one for that key before the window closes replaces the
+ * pending notification and bumps its change count. When the window closes only the latest
+ * notification is sent, together with the number of changes it stands for. The window is
+ * fixed from the first notification rather than extended by later ones, so a user never
+ * waits more than {@code window} for news, however busy the task is.
+ *
+ * Notifications are only taken in once the surrounding transaction commits. A window of
+ * zero turns coalescing off: every notification is sent right away, inside the caller's
+ * transaction.
+ *
+ * Metrics: {@code taskmaster.notifications.coalescer.events} (tagged emitted or absorbed)
+ * and {@code taskmaster.notifications.coalescer.pending}.
+ */
+@Component
+public class NotificationCoalescer {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationCoalescer.class);
+
+    private record Key(String userId, String taskId, NotificationType type) {}
+
+    /** Pending notification for one key; only changed inside ConcurrentHashMap.compute */
+    private static final class Burst {
+        private IntConsumer emitter;
+        private int changes;
+
+        Burst(IntConsumer emitter) {
+            this.emitter = emitter;
+            this.changes = 1;
+        }
+    }
+
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final Duration window;
+    private final Map<Key, Burst> bursts = new ConcurrentHashMap<>();
+    private final Counter emitted;
+    private final Counter absorbed;
+
+    public NotificationCoalescer(ThreadPoolTaskScheduler taskScheduler,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${taskmaster.notifications.coalesce.window:10s}") Duration window) {
+        this.taskScheduler = taskScheduler;
+        this.window = window;
+        this.emitted = meterRegistry.counter("taskmaster.notifications.coalescer.events", "result", "emitted");
+        this.absorbed = meterRegistry.counter("taskmaster.notifications.coalescer.events", "result", "absorbed");
+        Gauge.builder("taskmaster.notifications.coalescer.pending", bursts, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Submit a notification.
+     * @param emitter Sends the notification; called once per window with the number of
+     *                changes it covers, and only for the latest notification of the window
+     */
+    public void submit(String userId, String taskId, NotificationType type, IntConsumer emitter) {
+        if (window.isZero()) {
+            emitter.accept(1);
+            emitted.increment();
+            return;
+        }
+        Key key = new Key(userId, taskId, type);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(key, emitter);
+                }
+            });
+        } else {
+            add(key, emitter);
+        }
+    }
+
+    /**
+     * Send every pending notification now, without waiting for its window to close.
+     */
+    public void flushAll() {
+        for (Key key : new ArrayList<>(bursts.keySet())) {
+            emit(key);
+        }
+    }
+
+    public int pending() {
+        return bursts.size();
+    }
+
+    private void add(Key key, IntConsumer emitter) {
+        boolean[] opened = new boolean[1];
+        bursts.compute(key, (k, burst) -> {
+            if (burst == null) {
+                opened[0] = true;
+                return new Burst(emitter);
+            }
+            burst.emitter = emitter;
+            burst.changes++;
+            return burst;
+        });
+        if (opened[0]) {
+            taskScheduler.schedule(() -> emit(key), Instant.now().plus(window));
+        } else {
+            absorbed.increment();
+        }
+    }
+
+    private void emit(Key key) {
+        Burst burst = bursts.remove(key);
+        if (burst == null) {
+            // already sent by flushAll
+            return;
+        }
+        try {
+            burst.emitter.accept(burst.changes);
+            emitted.increment();
+        } catch (RuntimeException e) {
+            logger.error("Failed to send coalesced {} notification to user {} for task {}",
+                    key.type(), key.userId(), key.taskId(), e);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPayload;
+import com.airtribe.TaskMaster.dto.NotificationPush;
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.entity.NotificationDelivery;
+import com.airtribe.TaskMaster.entity.NotificationType;
+import com.airtribe.TaskMaster.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Digest delivery: for users who opted into {@link NotificationDelivery#DIGEST}, task
+ * notifications are counted in memory instead of being stored and pushed one by one, and
+ * every {@code interval} each of those users with something new gets a single
+ * {@link NotificationType#DIGEST} notification summarizing them. That costs one row and
+ * one push per user and interval, however many events there were.
+ *
+ * Events are only counted once the surrounding transaction commits. Only counts and the
+ * most recent task IDs are kept per user, so memory does not grow with the number of
+ * events. Pending digests are sent on shutdown but lost if the process dies.
+ *
+ * Each instance collects the events it handles, so with several instances a user may get
+ * one digest per instance and interval. A preference changed on another instance arrives
+ * as its {@link NotificationPayload.DeliveryChanged} push and is applied here as well;
+ * the preferences are reloaded from the database after pushes may have been missed.
+ *
+ * Metrics: {@code taskmaster.notifications.digest.events} (events absorbed into digests),
+ * {@code taskmaster.notifications.digest.sent} and {@code taskmaster.notifications.digest.pending}.
+ */
+@Component
+public class NotificationDigest {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDigest.class);
+    /** Task IDs kept per digest so clients can link to the latest tasks */
+    static final int MAX_TASK_IDS = 20;
+
+    /** What one user has been notified about since their last digest */
+    private static final class Pending {
+        private final Instant since = Instant.now();
+        private final Map<NotificationType, Integer> counts = new EnumMap<>(NotificationType.class);
+        private final Set<String> taskIds = new LinkedHashSet<>();
+        private int total;
+
+        void add(NotificationType type, List<String> eventTaskIds) {
+            // a bulk assignment counts once per task
+            int events = Math.max(1, eventTaskIds.size());
+            counts.merge(type, events, Integer::sum);
+            total += events;
+            for (String taskId : eventTaskIds) {
+                // move to the end so the newest tasks are kept
+                taskIds.remove(taskId);
+                taskIds.add(taskId);
+                if (taskIds.size() > MAX_TASK_IDS) {
+                    taskIds.remove(taskIds.iterator().next());
+                }
+            }
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final NotificationWriter notificationWriter;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationInboxCache notificationInboxCache;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final ObjectReader payloadReader;
+    /** Commits a digest's row, sequence number and push together, so pushes are queued in sequence order */
+    private final TransactionTemplate transactionTemplate;
+    private final Duration interval;
+    private final Set<String> digestUsers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Counter absorbed;
+    private final Counter sent;
+
+    public NotificationDigest(UserRepository userRepository,
+                              NotificationWriter notificationWriter,
+                              NotificationDispatcher notificationDispatcher,
+                              NotificationInboxCache notificationInboxCache,
+                              ThreadPoolTaskScheduler taskScheduler,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${taskmaster.notifications.digest.interval:1h}") Duration interval) {
+        this.userRepository = userRepository;
+        this.notificationWriter = notificationWriter;
+        this.notificationDispatcher = notificationDispatcher;
+        this.notificationInboxCache = notificationInboxCache;
+        this.taskScheduler = taskScheduler;
+        this.payloadReader = objectMapper.readerFor(NotificationPayload.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.interval = interval;
+        this.absorbed = meterRegistry.counter("taskmaster.notifications.digest.events");
+        this.sent = meterRegistry.counter("taskmaster.notifications.digest.sent");
+        Gauge.builder("taskmaster.notifications.digest.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+        taskScheduler.scheduleAtFixedRate(this::sendAll, Instant.now().plus(interval), interval);
+        logger.info("{} users receive notification digests every {}", digestUsers.size(), interval);
+    }
+
+    /**
+     * Apply a preference that was changed on another instance.
+     */
+    @EventListener
+    public void onRemotePush(LocalNotificationDelivery.RemotePush event) {
+        NotificationPush push = event.push();
+        if (push.notificationId() != null) {
+            // a stored notification, not a change of preference
+            return;
+        }
+        try {
+            if (payloadReader.readValue(push.payload()) instanceof NotificationPayload.DeliveryChanged changed) {
+                setDelivery(changed.userId(), NotificationDelivery.valueOf(changed.delivery()));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Ignoring malformed delivery change for user {}", push.userId(), e);
+        }
+    }
+
+    /**
+     * Reload the preferences, which may have changed on other instances without this one
+     * hearing of it. Users no longer on digests get what was collected for them.
+     */
+    @EventListener(LocalNotificationDelivery.Resync.class)
+    public void reload() {
+        Set<String> current = Set.copyOf(userRepository.findIdsByNotificationDelivery(NotificationDelivery.DIGEST));
+        digestUsers.addAll(current);
+        for (String userId : new ArrayList<>(digestUsers)) {
+            if (!current.contains(userId)) {
+                setDelivery(userId, NotificationDelivery.INSTANT);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendAll();
+    }
+
+    public NotificationDelivery getDelivery(String userId) {
+        return digestUsers.contains(userId) ? NotificationDelivery.DIGEST : NotificationDelivery.INSTANT;
+    }
+
+    /**
+     * Record a user's delivery preference. Switching back to instant delivery sends what
+     * has been collected so far right away.
+     */
+    public void setDelivery(String userId, NotificationDelivery delivery) {
+        if (delivery == NotificationDelivery.DIGEST) {
+            digestUsers.add(userId);
+        } else {
+            digestUsers.remove(userId);
+            send(userId);
+        }
+    }
+
+    /**
+     * Take an event into the user's digest if they receive digests.
+     * @param taskIds The tasks the event is about; each one counts as an event of the type
+     * @return true if the event was absorbed and must not be sent on its own
+     */
+    public boolean absorb(String userId, NotificationType type, List<String> taskIds) {
+        if (!digestUsers.contains(userId)) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(userId, type, taskIds);
+                }
+            });
+        } else {
+            add(userId, type, taskIds);
+        }
+        return true;
+    }
+
+    /**
+     * Send the digest of every user with something pending.
+     */
+    public void sendAll() {
+        for (String userId : new ArrayList<>(pending.keySet())) {
+            send(userId);
+        }
+    }
+
+    private void add(String userId, NotificationType type, List<String> taskIds) {
+        pending.compute(userId, (id, digest) -> {
+            Pending updated = digest == null ? new Pending() : digest;
+            updated.add(type, taskIds);
+            return updated;
+        });
+        absorbed.increment();
+    }
+
+    private void send(String userId) {
+        Pending digest = pending.remove(userId);
+        if (digest == null) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> send(userId, digest));
+            sent.increment();
+        } catch (RuntimeException e) {
+            logger.error("Failed to send notification digest to user {}", userId, e);
+        }
+    }
+
+    private void send(String userId, Pending digest) {
+        Notification notification = notificationWriter.write(Notification.builder()
+                .userId(userId)
+                .message(message(digest))
+                .type(NotificationType.DIGEST)
+                .isRead(false)
+                .build());
+        notificationInboxCache.added(notification);
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        digest.counts.forEach((type, count) -> counts.put(type.name(), count));
+        notificationDispatcher.enqueue(userId, notification.getId(), new NotificationPayload.Digest(
+                notification.getMessage(), userId, counts, digest.total, List.copyOf(digest.taskIds),
+                digest.since.toEpochMilli(), notification.getCreatedAt().toEpochMilli(),
+                notification.getId(), notification.getSeq(), notification.isRead()));
+    }
+
+    /** For example "7 task notifications (3 assigned, 4 updated)" */
+    private static String message(Pending digest) {
+        String parts = digest.counts.entrySet().stream()
+                .map(entry -> entry.getValue() + " " + entry.getKey().name().substring("TASK_".length()).toLowerCase())
+                .collect(Collectors.joining(", "));
+        return String.format("%d task %s (%s)", digest.total, digest.total == 1 ? "notification" : "notifications", parts);
+    }
+}
@@ -0,0 +1,372 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPayload;
+import com.airtribe.TaskMaster.dto.NotificationPush;
+import com.airtribe.TaskMaster.entity.NotificationOutbox;
+import com.airtribe.TaskMaster.entity.NotificationOutboxLock;
+import com.airtribe.TaskMaster.exception.NotificationException;
+import com.airtribe.TaskMaster.repository.NotificationOutboxLockRepository;
+import com.airtribe.TaskMaster.repository.NotificationOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers notification pushes through a transactional outbox.
+ *
+ * {@link #enqueue} writes the push to the {@code notification_outbox} table inside the
+ * caller's transaction and wakes the dispatcher once it commits, so the request thread
+ * never waits on the broker. The dispatcher reads due rows in batches of {@code batch-size}
+ * and hands each user's rows to one of {@code threads} delivery threads, which send them
+ * in write order. A failed push is retried with exponential backoff starting at
+ * {@code retry-backoff}; the user's later pushes wait behind it, including those written
+ * after it failed or read in a later batch, so they are never delivered out of order. After {@code max-attempts} the push is given up on and left in
+ * the table for inspection. A poll every {@code poll-interval} picks up retries and rows
+ * left over from a restart.
+ *
+ * Each batch is claimed under a lock row in {@code notification_outbox_lock}: its rows
+ * are read and made due again only {@code claim-timeout} later, and that short
+ * transaction commits before anything is sent. With several instances, one claims at a
+ * time, and a claimed push and every later push to the same user are hidden from the
+ * others, so no instance sends a user's later push while another still holds an earlier
+ * one. The delivery threads only publish and report what happened; the coordinator
+ * thread then deletes the delivered rows and reschedules the rest in a second short
+ * transaction. No transaction, lock or connection is held while the bus publishes.
+ *
+ * Each push is serialized to JSON once, when it is queued, by a writer resolved once for
+ * {@link NotificationPayload}, and sent as those bytes without going through the message
+ * converter again. Pushes are published on the {@link NotificationBus}, which reaches the
+ * user's WebSocket sessions and Server-Sent Events streams on whichever instance holds
+ * them; a push counts as delivered once the bus took it.
+ *
+ * Delivery is at least once: a crash between sending and deleting a row sends it again,
+ * once its claim runs out, and so does a batch still being sent after {@code claim-timeout}.
+ * Metrics: {@code taskmaster.notifications.outbox.deliveries} (tagged delivered, retried
+ * or abandoned), {@code taskmaster.notifications.outbox.lag} (time from write to delivery)
+ * and {@code taskmaster.notifications.outbox.oldest.age} (seconds the oldest pending push
+ * has been waiting, as of the last poll).
+ */
+@Component
+public class NotificationDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationOutboxLockRepository lockRepository;
+    private final TransactionTemplate batchTransaction;
+    private final NotificationBus notificationBus;
+    private final ObjectWriter payloadWriter;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration pollInterval;
+    private final Duration claimTimeout;
+    private final ExecutorService coordinator;
+    private final ExecutorService deliveryPool;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter abandoned;
+    private final Timer lag;
+    private volatile Instant oldestPending;
+    private volatile boolean lockRowCreated;
+
+    public NotificationDispatcher(NotificationOutboxRepository outboxRepository,
+                                  NotificationOutboxLockRepository lockRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  NotificationBus notificationBus,
+                                  ObjectMapper objectMapper,
+                                  ThreadPoolTaskScheduler taskScheduler,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${taskmaster.notifications.outbox.threads:4}") int threads,
+                                  @Value("${taskmaster.notifications.outbox.batch-size:100}") int batchSize,
+                                  @Value("${taskmaster.notifications.outbox.max-attempts:8}") int maxAttempts,
+                                  @Value("${taskmaster.notifications.outbox.retry-backoff:1s}") Duration retryBackoff,
+                                  @Value("${taskmaster.notifications.outbox.poll-interval:5s}") Duration pollInterval,
+                                  @Value("${taskmaster.notifications.outbox.claim-timeout:1m}") Duration claimTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.lockRepository = lockRepository;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.notificationBus = notificationBus;
+        this.payloadWriter = objectMapper.writerFor(NotificationPayload.class);
+        this.taskScheduler = taskScheduler;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.pollInterval = pollInterval;
+        this.claimTimeout = claimTimeout;
+        this.coordinator = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("notification-outbox-"));
+        this.deliveryPool = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("notification-dispatch-"));
+        this.delivered = meterRegistry.counter("taskmaster.notifications.outbox.deliveries", "result", "delivered");
+        this.retried = meterRegistry.counter("taskmaster.notifications.outbox.deliveries", "result", "retried");
+        this.abandoned = meterRegistry.counter("taskmaster.notifications.outbox.deliveries", "result", "abandoned");
+        this.lag = meterRegistry.timer("taskmaster.notifications.outbox.lag");
+        Gauge.builder("taskmaster.notifications.outbox.oldest.age", this, NotificationDispatcher::oldestPendingAge)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskScheduler.scheduleWithFixedDelay(this::poll, pollInterval);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        coordinator.shutdown();
+        coordinator.awaitTermination(5, TimeUnit.SECONDS);
+        deliveryPool.shutdown();
+        deliveryPool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue a push of the payload to the user's notification destination. Joins the
+     * current transaction if there is one; the push is sent after it commits.
+     */
+    public void enqueue(String userId, String notificationId, NotificationPayload message) {
+        String payload;
+        try {
+            payload = payloadWriter.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new NotificationException("Failed to serialize notification " + notificationId, e);
+        }
+        outboxRepository.save(NotificationOutbox.builder()
+                .notificationId(notificationId)
+                .seq(message.seq())
+                .userId(userId)
+                .destination("/user/" + userId + "/notifications")
+                .payload(payload)
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestDrain();
+                }
+            });
+        } else {
+            requestDrain();
+        }
+    }
+
+    /**
+     * Ask for the outbox to be drained. Returns immediately; if a drain is already running
+     * it makes one more pass before stopping.
+     */
+    public void requestDrain() {
+        drainRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            coordinator.execute(this::drain);
+        }
+    }
+
+    void poll() {
+        try {
+            oldestPending = outboxRepository.findFirstByAttemptsLessThanOrderByIdAsc(maxAttempts)
+                    .map(NotificationOutbox::getCreatedAt)
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read notification outbox lag", e);
+        }
+        requestDrain();
+    }
+
+    private double oldestPendingAge() {
+        Instant oldest = oldestPending;
+        return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+    }
+
+    private void drain() {
+        boolean failed = false;
+        try {
+            do {
+                drainRequested.set(false);
+                while (dispatchBatch() == batchSize) {
+                    // a full batch means there may be more waiting
+                }
+            } while (drainRequested.get());
+        } catch (RuntimeException e) {
+            // leave the rest to the next poll rather than spinning on a broken database
+            failed = true;
+            logger.error("Failed to drain notification outbox", e);
+        } finally {
+            draining.set(false);
+        }
+        if (!failed && drainRequested.get()) {
+            requestDrain();
+        }
+    }
+
+    /**
+     * Deliver one batch: claim it under the outbox lock, send it without holding anything,
+     * then apply the outcomes. Another instance draining at the same time waits for the
+     * claim only, and then sees what is left.
+     */
+    private int dispatchBatch() {
+        ensureLockRow();
+        List<NotificationOutbox> batch = batchTransaction.execute(status -> {
+            lockRepository.lock(NotificationOutboxLock.ID);
+            Instant now = Instant.now();
+            List<NotificationOutbox> due = outboxRepository.findDue(maxAttempts, now, PageRequest.of(0, batchSize));
+            if (!due.isEmpty()) {
+                outboxRepository.reschedule(due.stream().map(NotificationOutbox::getId).toList(), now.plus(claimTimeout));
+            }
+            return due;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<NotificationOutbox>> byUser = batch.stream()
+                .collect(Collectors.groupingBy(NotificationOutbox::getUserId, LinkedHashMap::new, Collectors.toList()));
+        List<Future<Outcome>> deliveries = new ArrayList<>(byUser.size());
+        for (List<NotificationOutbox> rows : byUser.values()) {
+            deliveries.add(deliveryPool.submit(() -> deliver(rows)));
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(deliveries.size());
+        for (Future<Outcome> delivery : deliveries) {
+            try {
+                outcomes.add(delivery.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NotificationException("Interrupted while dispatching notifications", e);
+            } catch (ExecutionException e) {
+                throw new NotificationException("Failed to dispatch notifications", e.getCause());
+            }
+        }
+        batchTransaction.executeWithoutResult(status -> apply(outcomes));
+        return batch.size();
+    }
+
+    /**
+     * Delete the delivered rows, count the failed attempts and reschedule what is retried.
+     */
+    private void apply(List<Outcome> outcomes) {
+        List<Long> done = new ArrayList<>();
+        Map<Long, String> failed = new HashMap<>();
+        for (Outcome outcome : outcomes) {
+            done.addAll(outcome.delivered());
+            failed.putAll(outcome.failed());
+            if (!outcome.rescheduled().isEmpty()) {
+                outboxRepository.reschedule(outcome.rescheduled(), outcome.retryAt());
+            }
+        }
+        if (!done.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(done);
+        }
+        // read after rescheduling, so the update on commit keeps the new time
+        for (NotificationOutbox row : outboxRepository.findAllById(failed.keySet())) {
+            row.setAttempts(row.getAttempts() + 1);
+            row.setLastError(failed.get(row.getId()));
+        }
+    }
+
+    private void ensureLockRow() {
+        if (lockRowCreated) {
+            return;
+        }
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                if (!lockRepository.existsById(NotificationOutboxLock.ID)) {
+                    lockRepository.save(new NotificationOutboxLock(NotificationOutboxLock.ID));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // another instance created it at the same time
+        }
+        lockRowCreated = true;
+    }
+
+    /**
+     * Send one user's pushes in order, stopping at the first failure. The rest are
+     * rescheduled behind the failed one. Runs on a delivery thread, so it leaves the rows
+     * alone and only reports what happened to them.
+     */
+    private Outcome deliver(List<NotificationOutbox> rows) {
+        List<Long> done = new ArrayList<>(rows.size());
+        Map<Long, String> failed = new HashMap<>();
+        List<Long> rescheduled = new ArrayList<>();
+        Instant retryAt = null;
+        for (NotificationOutbox row : rows) {
+            if (retryAt != null) {
+                rescheduled.add(row.getId());
+                continue;
+            }
+            try {
+                notificationBus.publish(new NotificationPush(null, row.getUserId(), row.getNotificationId(),
+                        row.getSeq(), row.getDestination(), row.getPayload()));
+                done.add(row.getId());
+                delivered.increment();
+                lag.record(Duration.between(row.getCreatedAt(), Instant.now()));
+            } catch (Exception e) {
+                int attempts = row.getAttempts() + 1;
+                failed.put(row.getId(), abbreviate(e.toString()));
+                if (attempts >= maxAttempts) {
+                    abandoned.increment();
+                    logger.error("Giving up on notification {} for user {} after {} attempts",
+                            row.getNotificationId(), row.getUserId(), attempts, e);
+                    continue;
+                }
+                retried.increment();
+                retryAt = Instant.now().plus(retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20)));
+                rescheduled.add(row.getId());
+                logger.warn("Failed to send notification {} to user {}, retrying at {}",
+                        row.getNotificationId(), row.getUserId(), retryAt, e);
+            }
+        }
+        return new Outcome(done, failed, retryAt, rescheduled);
+    }
+
+    private static String abbreviate(String error) {
+        return error.length() <= 500 ? error : error.substring(0, 500);
+    }
+
+    /**
+     * What became of one user's pushes.
+     * @param delivered Rows that went out
+     * @param failed Error of each row whose attempt failed, by row ID
+     * @param retryAt When the failed push is tried again, null if none is
+     * @param rescheduled Rows due again at {@code retryAt}: the failed push and the ones behind it
+     */
+    private record Outcome(List<Long> delivered, Map<Long, String> failed, Instant retryAt, List<Long> rescheduled) {
+    }
+}
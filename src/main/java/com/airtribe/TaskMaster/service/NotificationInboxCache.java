@@ -0,0 +1,352 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Per-user cache of the inbox head: the {@code recent} newest notifications and the exact
+ * number of unread ones.
+ *
+ * A user's entry is loaded from the database on first use and from then on kept current by
+ * {@link #added}, {@link #markedRead} and {@link #markedReadUpTo}, which take effect once
+ * the surrounding transaction commits. It answers the unread count and the first inbox
+ * page without a query. At most
+ * {@code max-users} entries are kept; the least recently used one is evicted beyond that,
+ * so memory stays bounded at roughly {@code max-users * recent} notifications.
+ *
+ * A load first flushes the notification writer, so rows still waiting in its queue are
+ * counted. A change for a user whose entry is being loaded discards the load instead of
+ * caching a result that may have missed it.
+ *
+ * Other instances change inboxes too. Their pushes arrive here as
+ * {@link LocalNotificationDelivery.RemotePush} events and drop the user's entry, once right
+ * away and once more after twice the writer's {@code flush-interval}, by when the other
+ * instance has stored the notification. Until then this instance may still answer from
+ * the database without it, so across instances the cache is only eventually consistent.
+ * Everything is dropped on {@link LocalNotificationDelivery.Resync}.
+ *
+ * Metrics: {@code taskmaster.notifications.inbox.requests} (tagged hit or miss),
+ * {@code taskmaster.notifications.inbox.evictions} and {@code taskmaster.notifications.inbox.size}.
+ */
+@Component
+public class NotificationInboxCache {
+    /** Newest first, ties broken by ID, as in the inbox queries */
+    private static final Comparator<Notification> NEWEST_FIRST =
+            Comparator.comparing(Notification::getCreatedAt).reversed().thenComparing(Notification::getId);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationWriter notificationWriter;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    /** How long after a remote push the other instance's notification is surely stored */
+    private final Duration remoteWriteDelay;
+    private final int maxUsers;
+    private final int recentSize;
+    /** Guarded by itself, as is every Entry in it and {@code loads} */
+    private final Map<String, Entry> entries;
+    /** Users being loaded, mapped to whether they changed during the load */
+    private final Map<String, Boolean> loads = new HashMap<>();
+    private final SingleFlight<String, Entry> loadFlight;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public NotificationInboxCache(NotificationRepository notificationRepository,
+                                  NotificationWriter notificationWriter,
+                                  ThreadPoolTaskScheduler taskScheduler,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${taskmaster.notifications.inbox.max-users:10000}") int maxUsers,
+                                  @Value("${taskmaster.notifications.inbox.recent:50}") int recent,
+                                  @Value("${taskmaster.notifications.writer.flush-interval:200ms}") Duration flushInterval) {
+        this.notificationRepository = notificationRepository;
+        this.notificationWriter = notificationWriter;
+        this.taskScheduler = taskScheduler;
+        this.remoteWriteDelay = flushInterval.multipliedBy(2);
+        this.maxUsers = maxUsers;
+        this.recentSize = recent;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean full = size() > NotificationInboxCache.this.maxUsers;
+                if (full) {
+                    evictions.increment();
+                }
+                return full;
+            }
+        };
+        this.loadFlight = new SingleFlight<>("notification.inbox", meterRegistry);
+        this.hits = meterRegistry.counter("taskmaster.notifications.inbox.requests", "result", "hit");
+        this.misses = meterRegistry.counter("taskmaster.notifications.inbox.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("taskmaster.notifications.inbox.evictions");
+        Gauge.builder("taskmaster.notifications.inbox.size", this, NotificationInboxCache::size).register(meterRegistry);
+    }
+
+    public long unreadCount(String userId) {
+        Entry entry = entry(userId);
+        synchronized (entries) {
+            return entry.unread;
+        }
+    }
+
+    /**
+     * The head of a user's inbox, if the cache holds enough of it to answer exactly.
+     * @param unreadOnly Only unread notifications
+     * @param limit Page size
+     * @return Copies of up to {@code limit + 1} notifications, newest first, so the caller
+     *         can tell whether there is a next page; empty if the database must be asked
+     */
+    public Optional<List<Notification>> firstPage(String userId, boolean unreadOnly, int limit) {
+        Entry entry = entry(userId);
+        synchronized (entries) {
+            List<Notification> page = new ArrayList<>(Math.min(limit + 1, entry.recent.size()));
+            for (Notification notification : entry.recent) {
+                if (page.size() > limit) {
+                    break;
+                }
+                if (!unreadOnly || !notification.isRead()) {
+                    page.add(notification.toBuilder().build());
+                }
+            }
+            boolean exact = page.size() > limit
+                    || (unreadOnly ? page.size() == entry.unread : entry.complete);
+            return exact ? Optional.of(page) : Optional.empty();
+        }
+    }
+
+    /**
+     * Record a new notification once the current transaction commits, or right away without one.
+     */
+    public void added(Notification notification) {
+        Notification copy = notification.toBuilder().build();
+        afterCommit(() -> apply(copy.getUserId(), entry -> entry.add(copy)));
+    }
+
+    /**
+     * Record that notifications of a user were marked read, once the current transaction
+     * commits. IDs that were already read or belong to someone else are ignored.
+     */
+    public void markedRead(String userId, Collection<String> notificationIds) {
+        Set<String> ids = Set.copyOf(notificationIds);
+        afterCommit(() -> apply(userId, entry -> entry.markRead(ids)));
+    }
+
+    /**
+     * Record that a user's notifications were marked read from the newest down to and
+     * including the given position, or all of them if the position is null, once the
+     * current transaction commits.
+     */
+    public void markedReadUpTo(String userId, Instant createdAt, String notificationId) {
+        Notification upTo = createdAt == null ? null
+                : Notification.builder().createdAt(createdAt).id(notificationId).build();
+        afterCommit(() -> apply(userId, entry -> entry.markReadUpTo(upTo)));
+    }
+
+    /**
+     * Drop a user's entry, for changes that cannot be applied to it incrementally.
+     */
+    public void evict(String userId) {
+        afterCommit(() -> remove(userId));
+    }
+
+    @EventListener
+    public void onRemotePush(LocalNotificationDelivery.RemotePush event) {
+        String userId = event.push().userId();
+        remove(userId);
+        // the other instance writes the notification behind, so a load right now may miss it
+        taskScheduler.schedule(() -> remove(userId), Instant.now().plus(remoteWriteDelay));
+    }
+
+    @EventListener(LocalNotificationDelivery.Resync.class)
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            loads.replaceAll((userId, changed) -> true);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void remove(String userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+            loads.replace(userId, true);
+        }
+    }
+
+    private Entry entry(String userId) {
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                hits.increment();
+                return entry;
+            }
+        }
+        misses.increment();
+        return loadFlight.execute(userId, () -> load(userId));
+    }
+
+    private Entry load(String userId) {
+        synchronized (entries) {
+            loads.put(userId, false);
+        }
+        Entry entry;
+        try {
+            notificationWriter.flush();
+            List<Notification> newest = notificationRepository.findByUserIdOrderByCreatedAtDescIdAsc(
+                    userId, Limit.of(recentSize + 1));
+            long unread = notificationRepository.countByUserIdAndIsRead(userId, false);
+            entry = new Entry(newest, unread);
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                loads.remove(userId);
+            }
+            throw e;
+        }
+        synchronized (entries) {
+            if (!loads.remove(userId)) {
+                entries.put(userId, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Apply a change to a user's entry, dropping the entry if the change cannot be applied.
+     */
+    private void apply(String userId, Predicate<Entry> change) {
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry == null) {
+                loads.replace(userId, true);
+            } else if (!change.test(entry)) {
+                entries.remove(userId);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private final class Entry {
+        /** Newest first, at most {@code recent} */
+        private final List<Notification> recent;
+        /** Whether {@code recent} holds all of the user's notifications */
+        private boolean complete;
+        private long unread;
+
+        Entry(List<Notification> newest, long unread) {
+            this.complete = newest.size() <= recentSize;
+            this.recent = new ArrayList<>(Math.min(newest.size(), recentSize));
+            for (Notification notification : complete ? newest : newest.subList(0, recentSize)) {
+                recent.add(notification.toBuilder().build());
+            }
+            this.unread = unread;
+        }
+
+        /**
+         * @return false if the notification cannot be placed, because it is older than
+         *         everything held and may or may not have been loaded already
+         */
+        boolean add(Notification notification) {
+            int position = 0;
+            for (Notification held : recent) {
+                if (held.getId().equals(notification.getId())) {
+                    // already loaded from the database
+                    return true;
+                }
+                if (NEWEST_FIRST.compare(notification, held) < 0) {
+                    break;
+                }
+                position++;
+            }
+            if (position == recent.size() && !complete) {
+                return false;
+            }
+            recent.add(position, notification);
+            if (!notification.isRead()) {
+                unread++;
+            }
+            if (recent.size() > recentSize) {
+                recent.remove(recent.size() - 1);
+                complete = false;
+            }
+            return true;
+        }
+
+        /**
+         * @return false if one of the notifications is not held, so whether the count
+         *         already reflects it is unknown
+         */
+        boolean markRead(Set<String> notificationIds) {
+            int held = 0;
+            for (Notification notification : recent) {
+                if (notificationIds.contains(notification.getId())) {
+                    held++;
+                    markRead(notification);
+                }
+            }
+            return held == notificationIds.size() || complete;
+        }
+
+        /**
+         * @return false if the range reaches past the notifications held
+         */
+        boolean markReadUpTo(Notification upTo) {
+            if (upTo == null) {
+                recent.forEach(notification -> notification.setRead(true));
+                unread = 0;
+                return true;
+            }
+            for (Notification notification : recent) {
+                if (NEWEST_FIRST.compare(notification, upTo) > 0) {
+                    return true;
+                }
+                markRead(notification);
+            }
+            return complete;
+        }
+
+        private void markRead(Notification notification) {
+            if (!notification.isRead()) {
+                notification.setRead(true);
+                unread--;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes notifications past their retention: read ones older than {@code read-after} and
+ * all of them, read or not, older than {@code after}.
+ *
+ * Every {@code interval} a purge pass starts. It deletes in chunks of {@code chunk-size}
+ * rows, oldest first along the (is_read, created_at, id) index, each chunk in a short
+ * transaction of its own, and waits {@code pause} between chunks so it never holds locks
+ * for long or starves other writers. Chunks are chained on the task scheduler rather than
+ * sleeping on one of its threads. Users whose notifications were purged have their inbox
+ * cache entry dropped.
+ *
+ * Metrics: {@code taskmaster.notifications.retention.purged} (rows deleted, tagged read or
+ * unread), {@code taskmaster.notifications.retention.chunks} (time per chunk delete) and
+ * {@code taskmaster.notifications.retention.lag} (seconds the most overdue row has been
+ * past its retention, as of the start and end of the last pass).
+ */
+@Component
+public class NotificationPurger {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPurger.class);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationInboxCache notificationInboxCache;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final Duration readRetention;
+    private final Duration retention;
+    private final int chunkSize;
+    private final Duration pause;
+    private final Duration interval;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter purgedRead;
+    private final Counter purgedUnread;
+    private final Timer chunks;
+    private volatile Duration lag = Duration.ZERO;
+    private int passPurged;
+
+    public NotificationPurger(NotificationRepository notificationRepository,
+                              NotificationInboxCache notificationInboxCache,
+                              ThreadPoolTaskScheduler taskScheduler,
+                              MeterRegistry meterRegistry,
+                              @Value("${taskmaster.notifications.retention.enabled:true}") boolean enabled,
+                              @Value("${taskmaster.notifications.retention.read-after:30d}") Duration readAfter,
+                              @Value("${taskmaster.notifications.retention.after:180d}") Duration after,
+                              @Value("${taskmaster.notifications.retention.chunk-size:500}") int chunkSize,
+                              @Value("${taskmaster.notifications.retention.pause:200ms}") Duration pause,
+                              @Value("${taskmaster.notifications.retention.interval:1h}") Duration interval) {
+        this.notificationRepository = notificationRepository;
+        this.notificationInboxCache = notificationInboxCache;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        // everything older than the overall retention goes, read or not
+        this.readRetention = readAfter.compareTo(after) < 0 ? readAfter : after;
+        this.retention = after;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.interval = interval;
+        this.purgedRead = meterRegistry.counter("taskmaster.notifications.retention.purged", "state", "read");
+        this.purgedUnread = meterRegistry.counter("taskmaster.notifications.retention.purged", "state", "unread");
+        this.chunks = meterRegistry.timer("taskmaster.notifications.retention.chunks");
+        Gauge.builder("taskmaster.notifications.retention.lag", this, purger -> purger.lag.toMillis() / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            taskScheduler.scheduleWithFixedDelay(this::start, Instant.now().plus(pause), interval);
+        }
+    }
+
+    /**
+     * Start a purge pass unless one is still running. Returns after the first chunk; the
+     * rest follow on the task scheduler.
+     */
+    public void start() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        passPurged = 0;
+        try {
+            updateLag();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read notification retention lag", e);
+        }
+        step();
+    }
+
+    private void step() {
+        try {
+            int purged = purgeChunk();
+            if (purged > 0) {
+                passPurged += purged;
+                taskScheduler.schedule(this::step, Instant.now().plus(pause));
+                return;
+            }
+            updateLag();
+            if (passPurged > 0) {
+                logger.info("Purged {} notifications past retention", passPurged);
+            }
+        } catch (RuntimeException e) {
+            // try again with the next pass
+            logger.error("Failed to purge notifications", e);
+        }
+        running.set(false);
+    }
+
+    /**
+     * Delete one chunk of notifications past retention, unread ones past the overall
+     * retention first.
+     * @return The number of notifications deleted, 0 once nothing is left to purge
+     */
+    int purgeChunk() {
+        Instant now = Instant.now();
+        int purged = purge(false, now.minus(retention), purgedUnread);
+        if (purged == 0) {
+            purged = purge(true, now.minus(readRetention), purgedRead);
+        }
+        return purged;
+    }
+
+    void updateLag() {
+        Instant now = Instant.now();
+        Duration unreadLag = overdue(false, now.minus(retention));
+        Duration readLag = overdue(true, now.minus(readRetention));
+        lag = unreadLag.compareTo(readLag) > 0 ? unreadLag : readLag;
+    }
+
+    Duration lag() {
+        return lag;
+    }
+
+    private int purge(boolean read, Instant cutoff, Counter purged) {
+        List<Notification> chunk = notificationRepository.findByIsReadAndCreatedAtBeforeOrderByCreatedAtAscIdAsc(
+                read, cutoff, Limit.of(chunkSize));
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<String> ids = chunk.stream().map(Notification::getId).toList();
+        chunks.record(() -> notificationRepository.deleteAllByIdInBatch(ids));
+        purged.increment(chunk.size());
+        chunk.stream().map(Notification::getUserId).distinct().forEach(notificationInboxCache::evict);
+        return chunk.size();
+    }
+
+    private Duration overdue(boolean read, Instant cutoff) {
+        return notificationRepository.findFirstByIsReadAndCreatedAtBeforeOrderByCreatedAtAsc(read, cutoff)
+                .map(oldest -> Duration.between(oldest.getCreatedAt(), cutoff))
+                .orElse(Duration.ZERO);
+    }
+}
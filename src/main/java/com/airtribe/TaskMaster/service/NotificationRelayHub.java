@@ -0,0 +1,126 @@
+package com.airtribe.TaskMaster.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A minimal fan-out broker for {@link RelayNotificationBus}, for running several instances
+ * locally without a real message broker. Every line a connected instance writes is written
+ * to all connected instances, the sender included, in the order it was received from that
+ * sender. Nothing is stored: an instance that is not connected misses what is sent meanwhile.
+ *
+ * Run with {@code java -cp target/classes:<dependencies> com.airtribe.TaskMaster.service.NotificationRelayHub [port]}.
+ */
+public class NotificationRelayHub implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRelayHub.class);
+
+    private final ServerSocket serverSocket;
+    private final Set<Peer> peers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService threads = Executors.newCachedThreadPool(new CustomizableThreadFactory("notification-hub-"));
+
+    /**
+     * Start listening.
+     * @param port The port, or 0 for any free one
+     */
+    public NotificationRelayHub(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        threads.execute(this::accept);
+    }
+
+    public static void main(String[] args) throws IOException {
+        NotificationRelayHub hub = new NotificationRelayHub(args.length > 0 ? Integer.parseInt(args[0]) : 7070);
+        logger.info("Notification relay hub listening on port {}", hub.getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int peers() {
+        return peers.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        peers.forEach(Peer::close);
+        threads.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Peer peer = new Peer(serverSocket.accept());
+                peers.add(peer);
+                threads.execute(() -> relay(peer));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warn("Failed to accept a relay connection", e);
+                }
+            }
+        }
+    }
+
+    private void relay(Peer from) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(from.socket.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (Peer peer : peers) {
+                    peer.send(line);
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Relay connection from {} closed", from.socket.getRemoteSocketAddress(), e);
+        } finally {
+            from.close();
+        }
+    }
+
+    private final class Peer {
+        private final Socket socket;
+        private final Writer writer;
+
+        Peer(Socket socket) throws IOException {
+            this.socket = socket;
+            this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        void send(String line) {
+            try {
+                synchronized (writer) {
+                    writer.write(line);
+                    writer.write('\n');
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            peers.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close relay connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationReplay;
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Replays the pushes a user missed while disconnected, by the sequence number of the last
+ * notification they received.
+ *
+ * Local delivery records every push of a stored notification with {@link #delivered}. The
+ * {@code size} highest sequence numbers are kept per user, ordered by sequence number
+ * whatever order they arrived in, for at most {@code max-users} users, the least recently
+ * notified one evicted beyond that. {@link #replay} answers from the buffer when it holds
+ * every sequence number after the client's last one, with the pushes exactly as they were
+ * sent. Otherwise, when it does not reach back that far or a push in between has not been
+ * delivered, the notifications are read from the database by sequence number, up to
+ * {@code size} of them; if even more were missed the client is told to resync.
+ *
+ * Metrics: {@code taskmaster.notifications.replay.requests} (tagged buffer, database or
+ * resync, by where the answer came from) and {@code taskmaster.notifications.replay.users}.
+ */
+@Component
+public class NotificationReplayBuffer {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationWriter notificationWriter;
+    private final int size;
+    private final int maxUsers;
+    /** Guarded by itself, as is every Ring in it */
+    private final Map<String, Ring> rings;
+    private final Counter fromBuffer;
+    private final Counter fromDatabase;
+    private final Counter resyncs;
+
+    public NotificationReplayBuffer(NotificationRepository notificationRepository,
+                                    NotificationWriter notificationWriter,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${taskmaster.notifications.replay.size:100}") int size,
+                                    @Value("${taskmaster.notifications.replay.max-users:10000}") int maxUsers) {
+        this.notificationRepository = notificationRepository;
+        this.notificationWriter = notificationWriter;
+        this.size = size;
+        this.maxUsers = maxUsers;
+        this.rings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+                return size() > NotificationReplayBuffer.this.maxUsers;
+            }
+        };
+        this.fromBuffer = meterRegistry.counter("taskmaster.notifications.replay.requests", "source", "buffer");
+        this.fromDatabase = meterRegistry.counter("taskmaster.notifications.replay.requests", "source", "database");
+        this.resyncs = meterRegistry.counter("taskmaster.notifications.replay.requests", "source", "resync");
+        Gauge.builder("taskmaster.notifications.replay.users", this, NotificationReplayBuffer::users).register(meterRegistry);
+    }
+
+    /**
+     * Record a push that was delivered.
+     * @param payload The push as JSON
+     */
+    public void delivered(String userId, long seq, String payload) {
+        synchronized (rings) {
+            Ring ring = rings.get(userId);
+            if (ring == null) {
+                // nothing before this push was seen by this instance
+                ring = new Ring(seq - 1);
+                rings.put(userId, ring);
+            }
+            ring.add(seq, payload);
+        }
+    }
+
+    /**
+     * What the user missed after the notification with the given sequence number.
+     */
+    public NotificationReplay replay(String userId, long lastSeq) {
+        synchronized (rings) {
+            Ring ring = rings.get(userId);
+            String pushes = ring == null ? null : ring.after(lastSeq);
+            if (pushes != null) {
+                fromBuffer.increment();
+                return new NotificationReplay(pushes, List.of(), false);
+            }
+        }
+        // rows still queued in the writer would not be found
+        notificationWriter.flush();
+        List<Notification> missed = notificationRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(
+                userId, lastSeq, Limit.of(size + 1));
+        if (missed.size() > size) {
+            resyncs.increment();
+            return new NotificationReplay("[]", List.of(), true);
+        }
+        fromDatabase.increment();
+        return new NotificationReplay("[]", missed, false);
+    }
+
+    public int users() {
+        synchronized (rings) {
+            return rings.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (rings) {
+            rings.clear();
+        }
+    }
+
+    private final class Ring {
+        /** Payloads by sequence number, at most {@code size} */
+        private final TreeMap<Long, String> pushes = new TreeMap<>();
+        /** Nothing at or below this sequence number is held */
+        private long floor;
+
+        Ring(long floor) {
+            this.floor = floor;
+        }
+
+        void add(long seq, String payload) {
+            // a push redelivered, or one older than what the ring still covers
+            if (seq <= floor || pushes.putIfAbsent(seq, payload) != null) {
+                return;
+            }
+            if (pushes.size() > size) {
+                floor = pushes.pollFirstEntry().getKey();
+            }
+        }
+
+        /**
+         * The held pushes after the given sequence number, as a JSON array, or null if the
+         * ring does not hold every one of them
+         */
+        String after(long seq) {
+            if (seq < floor) {
+                return null;
+            }
+            StringJoiner json = new StringJoiner(",", "[", "]");
+            long expected = seq + 1;
+            for (Map.Entry<Long, String> push : pushes.tailMap(seq, false).entrySet()) {
+                if (push.getKey() != expected) {
+                    return null;
+                }
+                json.add(push.getValue());
+                expected++;
+            }
+            return json.toString();
+        }
+    }
+}
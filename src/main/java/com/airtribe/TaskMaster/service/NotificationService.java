@@ -1,44 +1,80 @@
 package com.airtribe.TaskMaster.service;
 
+import com.airtribe.TaskMaster.dto.CursorPage;
+import com.airtribe.TaskMaster.dto.NotificationPayload;
+import com.airtribe.TaskMaster.dto.PageCursor;
 import com.airtribe.TaskMaster.entity.*;
 import java.time.Duration;
+import com.airtribe.TaskMaster.exception.NotificationException;
 import com.airtribe.TaskMaster.repository.NotificationRepository;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.airtribe.TaskMaster.repository.UserRepository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.Objects;
+import java.util.Optional;
 
 
 
 @Service
 public class NotificationService {
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+    private static final Instant END_OF_TIME = Instant.parse("9999-12-31T23:59:59Z");
     
-    private final SimpMessagingTemplate messagingTemplate;
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationWriter notificationWriter;
+    private final NotificationCoalescer notificationCoalescer;
+    private final NotificationDigest notificationDigest;
+    private final NotificationInboxCache notificationInboxCache;
+    /**
+     * For notifications sent from a timer, so the row, its sequence number and its push are
+     * committed together and a user's pushes are queued in sequence number order; and for
+     * changes that first flush the writer, which must happen before the transaction starts
+     * so the request holds a single connection at a time
+     */
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public NotificationService(SimpMessagingTemplate messagingTemplate,
-                             NotificationRepository notificationRepository,
-                             UserRepository userRepository) {
-        this.messagingTemplate = messagingTemplate;
+    public NotificationService(NotificationRepository notificationRepository,
+                             UserRepository userRepository,
+                             NotificationDispatcher notificationDispatcher,
+                             NotificationWriter notificationWriter,
+                             NotificationCoalescer notificationCoalescer,
+                             NotificationDigest notificationDigest,
+                             NotificationInboxCache notificationInboxCache,
+                             PlatformTransactionManager transactionManager) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
+        this.notificationDispatcher = notificationDispatcher;
+        this.notificationWriter = notificationWriter;
+        this.notificationCoalescer = notificationCoalescer;
+        this.notificationDigest = notificationDigest;
+        this.notificationInboxCache = notificationInboxCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    @Transactional
     public void notifyTaskAssignment(String userId, Task task, TaskAssignment assignment) {
         // Validate user exists
         if (!userRepository.existsById(userId)) {
             logger.error("User not found for ID: {}", userId);
             return;
         }
+        if (notificationDigest.absorb(userId, NotificationType.TASK_ASSIGNED, List.of(task.getId()))) {
+            return;
+        }
         logger.info("Creating task assignment notification for user: {} and task: {}", userId, task.getId());
         
         Notification notification = Notification.builder()
@@ -49,39 +85,66 @@ public class NotificationService {
                 .isRead(false)
                 .build();
         
-        notification = notificationRepository.save(notification);
-        logger.info("Saved notification with ID: {}", notification.getId());
+        notification = notificationWriter.write(notification);
+        notificationInboxCache.added(notification);
+        logger.info("Queued notification with ID: {}", notification.getId());
         
-        try {
-            // Create message object with all necessary fields
-            Map<String, Object> messageObj = new HashMap<>();
-            messageObj.put("type", notification.getType().toString());
-            messageObj.put("message", notification.getMessage());
-            messageObj.put("userId", notification.getUserId());
-            messageObj.put("taskId", notification.getTaskId());
-            messageObj.put("taskTitle", task.getTitle());
-            messageObj.put("assignedBy", assignment.getAssignedBy());
-            messageObj.put("dueDate", task.getDueDate());
-            messageObj.put("taskPriority", task.getPriority().toString());
-            messageObj.put("timestamp", notification.getCreatedAt().toEpochMilli());
-            messageObj.put("notificationId", notification.getId());
-            messageObj.put("read", notification.isRead());
-            
-            // Send to user-specific topic
-            String destination = "/user/" + userId + "/notifications";
-            messagingTemplate.convertAndSend(destination, messageObj);
-            logger.info("Successfully sent notification to destination: {}", destination);
-        } catch (Exception e) {
-            logger.error("Failed to send notification to user: {}", userId, e);
+        // Pushed by the dispatcher once the surrounding transaction commits
+        notificationDispatcher.enqueue(userId, notification.getId(), new NotificationPayload.TaskAssigned(
+                notification.getMessage(), userId, notification.getTaskId(), task.getTitle(),
+                assignment.getAssignedBy(), task.getDueDate(), Objects.toString(task.getPriority(), null),
+                notification.getCreatedAt().toEpochMilli(), notification.getId(), notification.getSeq(),
+                notification.isRead()));
+    }
+
+    /**
+     * Notify a user about several tasks assigned to them at once with a single notification.
+     * The caller is expected to have verified that the user exists.
+     */
+    @Transactional
+    public void notifyTasksAssigned(String userId, List<Task> tasks, String assignedBy) {
+        if (tasks.isEmpty()) {
+            return;
         }
+        if (notificationDigest.absorb(userId, NotificationType.TASK_ASSIGNED, tasks.stream().map(Task::getId).toList())) {
+            return;
+        }
+        logger.info("Creating bulk assignment notification for user: {} and {} tasks", userId, tasks.size());
+
+        Task first = tasks.get(0);
+        String message = tasks.size() == 1
+                ? String.format("Task '%s' assigned by %s", first.getTitle(), assignedBy)
+                : String.format("%d tasks assigned by %s, including '%s'", tasks.size(), assignedBy, first.getTitle());
+
+        Notification notification = Notification.builder()
+                .userId(userId)
+                .taskId(tasks.size() == 1 ? first.getId() : null)
+                .message(message)
+                .type(NotificationType.TASK_ASSIGNED)
+                .isRead(false)
+                .build();
+
+        notification = notificationWriter.write(notification);
+        notificationInboxCache.added(notification);
+        logger.info("Queued notification with ID: {}", notification.getId());
+
+        // Pushed by the dispatcher once the surrounding transaction commits
+        notificationDispatcher.enqueue(userId, notification.getId(), new NotificationPayload.TasksAssigned(
+                notification.getMessage(), userId, notification.getTaskId(), tasks.stream().map(Task::getId).toList(),
+                tasks.size(), assignedBy, notification.getCreatedAt().toEpochMilli(), notification.getId(),
+                notification.getSeq(), notification.isRead()));
     }
 
+    @Transactional
     public void notifyTaskCompletion(String userId, Task task, TaskArchive archive) {
         // Validate user exists
         if (!userRepository.existsById(userId)) {
             logger.error("User not found for ID: {}", userId);
             return;
         }
+        if (notificationDigest.absorb(userId, NotificationType.TASK_COMPLETED, List.of(task.getId()))) {
+            return;
+        }
         logger.info("Creating task completion notification for user: {} and task: {}", userId, task.getId());
         
         String message;
@@ -110,44 +173,47 @@ public class NotificationService {
                 .isRead(false)
                 .build();
         
-        notification = notificationRepository.save(notification);
-        logger.info("Saved notification with ID: {}", notification.getId());
+        notification = notificationWriter.write(notification);
+        notificationInboxCache.added(notification);
+        logger.info("Queued notification with ID: {}", notification.getId());
         
-        try {
-            // Create message object with all necessary fields
-            Map<String, Object> messageObj = new HashMap<>();
-            messageObj.put("type", notification.getType().toString());
-            messageObj.put("message", notification.getMessage());
-            messageObj.put("userId", notification.getUserId());
-            messageObj.put("taskId", notification.getTaskId());
-            messageObj.put("taskTitle", task.getTitle());
-            messageObj.put("completedBy", archive.getCompletedBy());
-            messageObj.put("completedAt", archive.getCompletedAt());
-            messageObj.put("assignedAt", archive.getAssignedAt());
-            messageObj.put("dueDate", task.getDueDate());
-            messageObj.put("taskPriority", task.getPriority().toString());
-            messageObj.put("timestamp", notification.getCreatedAt().toEpochMilli());
-            messageObj.put("notificationId", notification.getId());
-            messageObj.put("read", notification.isRead());
-            
-            // Send to user-specific topic
-            String destination = "/user/" + userId + "/notifications";
-            messagingTemplate.convertAndSend(destination, messageObj);
-            logger.info("Successfully sent notification to destination: {}", destination);
-        } catch (Exception e) {
-            logger.error("Failed to send notification to user: {}", userId, e);
-        }
+        // Pushed by the dispatcher once the surrounding transaction commits
+        notificationDispatcher.enqueue(userId, notification.getId(), new NotificationPayload.TaskCompleted(
+                notification.getMessage(), userId, notification.getTaskId(), task.getTitle(),
+                archive.getCompletedBy(), archive.getCompletedAt(), archive.getAssignedAt(), task.getDueDate(),
+                Objects.toString(task.getPriority(), null), notification.getCreatedAt().toEpochMilli(),
+                notification.getId(), notification.getSeq(), notification.isRead()));
     }
 
+    /**
+     * Notify the assignee that a task changed. Updates to the same task within the
+     * coalescing window are sent as one notification carrying the latest state.
+     */
+    @Transactional
     public void notifyTaskUpdate(Task task, TaskAssignment assignment) {
         String userId = assignment.getAssignedTo();
-        logger.info("Creating task update notification for user: {} and task: {}", userId, task.getId());
+        if (notificationDigest.absorb(userId, NotificationType.TASK_UPDATED, List.of(task.getId()))) {
+            return;
+        }
+        // the task and assignment may change again before the window closes, so send what they are now
+        Task snapshot = task.toBuilder().build();
+        String assignedBy = assignment.getAssignedBy();
+        Status status = assignment.getStatus();
+        notificationCoalescer.submit(userId, task.getId(), NotificationType.TASK_UPDATED,
+                changes -> transactionTemplate.executeWithoutResult(
+                        tx -> sendTaskUpdate(userId, snapshot, assignedBy, status, changes)));
+    }
+
+    private void sendTaskUpdate(String userId, Task task, String assignedBy, Status status, int changes) {
+        logger.info("Creating task update notification for user: {} and task: {} covering {} changes",
+                userId, task.getId(), changes);
         
         // Create a more descriptive message
-        String message = String.format("Task '%s' has been updated - Status: %s, Priority: %s",
-            task.getTitle(),
-            assignment.getStatus(),
-            task.getPriority());
+        String message = changes == 1
+                ? String.format("Task '%s' has been updated - Status: %s, Priority: %s",
+                    task.getTitle(), status, task.getPriority())
+                : String.format("Task '%s' has been updated %d times - Status: %s, Priority: %s",
+                    task.getTitle(), changes, status, task.getPriority());
         
         Notification notification = Notification.builder()
                 .userId(userId)
@@ -157,49 +223,170 @@ public class NotificationService {
                 .isRead(false)
                 .build();
 
-        notification = notificationRepository.save(notification);
-        logger.info("Saved update notification with ID: {}", notification.getId());
-
-        try {
-            // Create message object with all necessary fields
-            Map<String, Object> messageObj = new HashMap<>();
-            messageObj.put("type", notification.getType().toString());
-            messageObj.put("message", notification.getMessage());
-            messageObj.put("userId", notification.getUserId());
-            messageObj.put("taskId", notification.getTaskId());
-            messageObj.put("taskTitle", task.getTitle());
-            messageObj.put("taskPriority", task.getPriority().toString());
-            messageObj.put("assignedTo", assignment.getAssignedTo());
-            messageObj.put("assignedBy", assignment.getAssignedBy());
-            messageObj.put("dueDate", task.getDueDate());
-            messageObj.put("status", assignment.getStatus().toString());
-            messageObj.put("timestamp", notification.getCreatedAt().toEpochMilli());
-            messageObj.put("notificationId", notification.getId());
-            messageObj.put("read", notification.isRead());
-            
-            // Send to user-specific topic
-            String destination = "/user/" + userId + "/notifications";
-            messagingTemplate.convertAndSend(destination, messageObj);
-            logger.info("Successfully sent update notification to destination: {}", destination);
-        } catch (Exception e) {
-            logger.error("Failed to send update notification to user: {}", userId, e);
+        notification = notificationWriter.write(notification);
+        notificationInboxCache.added(notification);
+        logger.info("Queued update notification with ID: {}", notification.getId());
+
+        // Pushed by the dispatcher once the surrounding transaction commits
+        notificationDispatcher.enqueue(userId, notification.getId(), new NotificationPayload.TaskUpdated(
+                notification.getMessage(), userId, notification.getTaskId(), task.getTitle(),
+                Objects.toString(task.getPriority(), null), userId, assignedBy, task.getDueDate(),
+                Objects.toString(status, null), changes, notification.getCreatedAt().toEpochMilli(),
+                notification.getId(), notification.getSeq(), notification.isRead()));
+    }
+
+    /**
+     * Send coalesced notifications that are still waiting for their window, while the
+     * writer and dispatcher they go through are still running.
+     */
+    @PreDestroy
+    public void flushPendingNotifications() {
+        notificationCoalescer.flushAll();
+    }
+
+    public NotificationDelivery getDelivery(String userId) {
+        return notificationDigest.getDelivery(userId);
+    }
+
+    /**
+     * Switch a user between instant notifications and periodic digests.
+     */
+    public void setDelivery(String userId, NotificationDelivery delivery) {
+        if (userRepository.updateNotificationDelivery(userId, delivery) == 0) {
+            throw new NotificationException("User not found: " + userId);
         }
+        notificationDigest.setDelivery(userId, delivery);
+        // lets the user's other sessions, and the other instances, know
+        notificationDispatcher.enqueue(userId, null, new NotificationPayload.DeliveryChanged(
+                userId, delivery.name(), Instant.now().toEpochMilli()));
     }
 
-    public List<Notification> getUserNotifications(String userId) {
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    /**
+     * Find a page of a user's notifications, newest first
+     * @param userId The recipient
+     * @param since Only notifications created after this instant, or null for all
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of notifications to return
+     * @return The user's notifications
+     */
+    public CursorPage<Notification> getUserNotifications(String userId, Instant since, String cursor, int limit) {
+        if (since == null && cursor == null) {
+            Optional<List<Notification>> cached = notificationInboxCache.firstPage(userId, false, limit);
+            if (cached.isPresent()) {
+                return page(cached.get(), limit);
+            }
+        }
+        PageCursor after = PageCursor.decode(cursor, "createdAt", SortDirection.DESC);
+        return page(notificationRepository.findPageByUserId(
+                userId,
+                since != null ? since : Instant.EPOCH,
+                after != null ? after.instantValue() : END_OF_TIME,
+                after != null ? after.getId() : "",
+                Limit.of(limit + 1)), limit);
     }
 
-    public List<Notification> getUnreadNotifications(String userId) {
-        return notificationRepository.findByUserIdAndIsReadOrderByCreatedAtDesc(userId, false);
+    /**
+     * Find a page of a user's unread notifications, newest first
+     * @param userId The recipient
+     * @param since Only notifications created after this instant, or null for all
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of notifications to return
+     * @return The user's unread notifications
+     */
+    public CursorPage<Notification> getUnreadNotifications(String userId, Instant since, String cursor, int limit) {
+        if (since == null && cursor == null) {
+            Optional<List<Notification>> cached = notificationInboxCache.firstPage(userId, true, limit);
+            if (cached.isPresent()) {
+                return page(cached.get(), limit);
+            }
+        }
+        PageCursor after = PageCursor.decode(cursor, "createdAt", SortDirection.DESC);
+        return page(notificationRepository.findPageByUserIdAndIsRead(
+                userId, false,
+                since != null ? since : Instant.EPOCH,
+                after != null ? after.instantValue() : END_OF_TIME,
+                after != null ? after.getId() : "",
+                Limit.of(limit + 1)), limit);
+    }
+
+    private static CursorPage<Notification> page(List<Notification> notifications, int limit) {
+        String nextCursor = null;
+        if (notifications.size() > limit) {
+            notifications = notifications.subList(0, limit);
+            Notification last = notifications.get(limit - 1);
+            nextCursor = new PageCursor("createdAt", SortDirection.DESC, last.getCreatedAt().toString(), last.getId()).encode();
+        }
+        return new CursorPage<>(notifications, nextCursor);
     }
 
     public void markAsRead(String notificationId) {
-        notificationRepository.findById(notificationId).ifPresent(notification -> {
-            notification.setRead(true);
-            notificationRepository.save(notification);
+        // a row still queued in the writer would not be found
+        notificationWriter.flush();
+        transactionTemplate.executeWithoutResult(status ->
+                notificationRepository.findById(notificationId).ifPresent(notification -> {
+                    if (notification.isRead()) {
+                        return;
+                    }
+                    notification.setRead(true);
+                    notificationRepository.save(notification);
+                    notificationInboxCache.markedRead(notification.getUserId(), List.of(notification.getId()));
+                    notificationDispatcher.enqueue(notification.getUserId(), null, new NotificationPayload.NotificationsRead(
+                            notification.getUserId(), 1, List.of(notification.getId()), null, Instant.now().toEpochMilli()));
+                }));
+    }
+
+    /**
+     * Mark notifications of a user read: lock the ones that are the user's and still unread,
+     * then mark those read with a single UPDATE. IDs that are already read or belong to
+     * someone else are skipped, and only the IDs that changed are pushed to other devices.
+     * @return The number of notifications that went from unread to read
+     */
+    public int markAsRead(String userId, Collection<String> notificationIds) {
+        // rows still queued in the writer would not be found by the UPDATE
+        notificationWriter.flush();
+        return transactionTemplate.execute(status -> {
+            List<String> unread = notificationRepository.lockUnreadIdsByUserIdAndIdIn(userId, notificationIds);
+            if (unread.isEmpty()) {
+                return 0;
+            }
+            int updated = notificationRepository.markReadByUserIdAndIdIn(userId, unread);
+            notificationInboxCache.markedRead(userId, unread);
+            notificationDispatcher.enqueue(userId, null, new NotificationPayload.NotificationsRead(
+                    userId, updated, unread, null, Instant.now().toEpochMilli()));
+            return updated;
         });
     }
 
+    /**
+     * Mark a user's notifications read with a single UPDATE: from the newest down to and
+     * including the position of {@code upTo}, or all of them.
+     * @param upTo A cursor returned with an inbox page, or null for all notifications
+     * @return The number of notifications that went from unread to read
+     */
+    public int markAllAsRead(String userId, String upTo) {
+        PageCursor position = PageCursor.decode(upTo, "createdAt", SortDirection.DESC);
+        Instant upToCreatedAt = position != null ? position.instantValue() : null;
+        String upToId = position != null ? position.getId() : null;
+        notificationWriter.flush();
+        return transactionTemplate.execute(status -> {
+            int updated = upToCreatedAt == null
+                    ? notificationRepository.markAllReadByUserId(userId)
+                    : notificationRepository.markReadByUserIdUpTo(userId, upToCreatedAt, upToId);
+            if (updated > 0) {
+                notificationInboxCache.markedReadUpTo(userId, upToCreatedAt, upToId);
+                notificationDispatcher.enqueue(userId, null, new NotificationPayload.NotificationsRead(
+                        userId, updated, null, upTo, Instant.now().toEpochMilli()));
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Number of unread notifications of a user, from the inbox cache.
+     */
+    public long getUnreadCount(String userId) {
+        return notificationInboxCache.unreadCount(userId);
+    }
+
 
 }
@@ -0,0 +1,288 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events feed of notification pushes, for clients that only need to receive
+ * them and would rather not speak STOMP.
+ *
+ * Local delivery hands every push to {@link #publish}, which queues it for the user's open
+ * streams as a {@code notification} event carrying the same JSON as the WebSocket push,
+ * with the notification ID as the event ID. Streams are asynchronous, so an open one holds
+ * no servlet thread; it is closed after {@code timeout} and the client reconnects. Every
+ * {@code heartbeat} a comment is queued for each stream so proxies keep it open and dead
+ * ones are noticed.
+ *
+ * Writing to a stream blocks while the client is not reading, so events are written by
+ * {@code threads} sender threads of their own, never by the thread that publishes them.
+ * Each stream holds at most {@code queue-size} unwritten events; a stream that falls
+ * further behind is closed, and its client reconnects with {@code Last-Event-ID}.
+ *
+ * A client reconnecting with {@code Last-Event-ID} first gets the notifications created
+ * after that one, up to {@code replay-limit}, as {@code missed} events shaped like the
+ * inbox items of {@code GET /api/notifications}. If more than that were missed, or the
+ * notification is unknown, it gets a single {@code resync} event and should reload its
+ * inbox instead. Pushes that arrive while the replay runs may also be in it, so a client
+ * can see a notification twice.
+ *
+ * Metrics: {@code taskmaster.notifications.stream.connections} (open streams),
+ * {@code taskmaster.notifications.stream.replayed} (notifications sent as missed) and
+ * {@code taskmaster.notifications.stream.dropped} (streams closed for falling behind).
+ */
+@Component
+public class NotificationStream {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStream.class);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationWriter notificationWriter;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final Duration heartbeat;
+    private final Duration timeout;
+    private final int replayLimit;
+    private final int queueSize;
+    private final Map<String, Set<Stream>> streams = new ConcurrentHashMap<>();
+    /** Writes queued events, so a client that stopped reading never blocks the publishing thread */
+    private final ExecutorService sender;
+    private final Counter replayed;
+    private final Counter dropped;
+
+    @Autowired
+    public NotificationStream(NotificationRepository notificationRepository,
+                              NotificationWriter notificationWriter,
+                              ThreadPoolTaskScheduler taskScheduler,
+                              MeterRegistry meterRegistry,
+                              @Value("${taskmaster.notifications.stream.heartbeat:15s}") Duration heartbeat,
+                              @Value("${taskmaster.notifications.stream.timeout:30m}") Duration timeout,
+                              @Value("${taskmaster.notifications.stream.replay-limit:100}") int replayLimit,
+                              @Value("${taskmaster.notifications.stream.queue-size:100}") int queueSize,
+                              @Value("${taskmaster.notifications.stream.threads:4}") int threads) {
+        this(notificationRepository, notificationWriter, taskScheduler, meterRegistry, heartbeat, timeout,
+                replayLimit, queueSize,
+                Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("notification-stream-")));
+    }
+
+    NotificationStream(NotificationRepository notificationRepository,
+                       NotificationWriter notificationWriter,
+                       ThreadPoolTaskScheduler taskScheduler,
+                       MeterRegistry meterRegistry,
+                       Duration heartbeat,
+                       Duration timeout,
+                       int replayLimit,
+                       int queueSize,
+                       ExecutorService sender) {
+        this.notificationRepository = notificationRepository;
+        this.notificationWriter = notificationWriter;
+        this.taskScheduler = taskScheduler;
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        this.replayLimit = replayLimit;
+        this.queueSize = queueSize;
+        this.sender = sender;
+        this.replayed = meterRegistry.counter("taskmaster.notifications.stream.replayed");
+        this.dropped = meterRegistry.counter("taskmaster.notifications.stream.dropped");
+        Gauge.builder("taskmaster.notifications.stream.connections", this, NotificationStream::connections)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskScheduler.scheduleAtFixedRate(this::sendHeartbeats, Instant.now().plus(heartbeat), heartbeat);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        streams.values().forEach(open -> open.forEach(stream -> stream.emitter.complete()));
+        streams.clear();
+    }
+
+    /**
+     * Open a stream of the user's pushes.
+     * @param lastEventId The ID of the last event the client received, or null for a new stream
+     */
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Stream stream = new Stream(userId, emitter);
+        emitter.onCompletion(() -> remove(stream));
+        emitter.onTimeout(() -> remove(stream));
+        emitter.onError(error -> remove(stream));
+        // registered before the replay so nothing published meanwhile is missed
+        streams.compute(userId, (id, open) -> {
+            Set<Stream> updated = open == null ? ConcurrentHashMap.newKeySet() : open;
+            updated.add(stream);
+            return updated;
+        });
+
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                replay(userId, lastEventId, emitter);
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Stream of user {} closed during replay", userId, e);
+                remove(stream);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Queue a push for the user's open streams. Streams that fail or fall behind are closed.
+     * @param notificationId The event ID, or null for pushes that are not stored notifications
+     * @param payload The push as JSON
+     */
+    public void publish(String userId, String notificationId, String payload) {
+        Set<Stream> open = streams.get(userId);
+        if (open == null) {
+            return;
+        }
+        for (Stream stream : open) {
+            SseEmitter.SseEventBuilder event = SseEmitter.event();
+            if (notificationId != null) {
+                event.id(notificationId);
+            }
+            enqueue(stream, event.name("notification").data(payload, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    public int connections() {
+        return streams.values().stream().mapToInt(Set::size).sum();
+    }
+
+    void sendHeartbeats() {
+        streams.values().forEach(open -> open.forEach(stream ->
+                enqueue(stream, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private void replay(String userId, String lastEventId, SseEmitter emitter) throws IOException {
+        // rows still queued in the writer would not be found
+        notificationWriter.flush();
+        Optional<Notification> last = notificationRepository.findById(lastEventId)
+                .filter(notification -> notification.getUserId().equals(userId));
+        if (last.isEmpty()) {
+            emitter.send(SseEmitter.event().name("resync").data(""));
+            return;
+        }
+        List<Notification> missed = notificationRepository.findByUserIdAfter(
+                userId, last.get().getCreatedAt(), last.get().getId(), Limit.of(replayLimit + 1));
+        if (missed.size() > replayLimit) {
+            emitter.send(SseEmitter.event().name("resync").data(""));
+            return;
+        }
+        for (Notification notification : missed) {
+            emitter.send(SseEmitter.event()
+                    .id(notification.getId())
+                    .name("missed")
+                    .data(notification, MediaType.APPLICATION_JSON));
+        }
+        replayed.increment(missed.size());
+    }
+
+    private void enqueue(Stream stream, SseEmitter.SseEventBuilder event) {
+        if (stream.closed) {
+            return;
+        }
+        if (stream.queued.incrementAndGet() > queueSize) {
+            // completed by the sender, which may be blocked writing to it right now
+            logger.info("Closing notification stream of user {}, more than {} events behind", stream.userId, queueSize);
+            stream.closed = true;
+            dropped.increment();
+            remove(stream);
+        } else {
+            stream.pending.add(event);
+        }
+        if (stream.writing.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> write(stream));
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                stream.writing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Write what is queued for a stream, or complete it once it was closed. Only one sender
+     * thread writes to a stream at a time, so its events keep their order.
+     */
+    private void write(Stream stream) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while (!stream.closed && (event = stream.pending.poll()) != null) {
+                stream.queued.decrementAndGet();
+                try {
+                    stream.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // the client went away; the container completes the emitter
+                    logger.debug("Dropping notification stream of user {}", stream.userId, e);
+                    stream.closed = true;
+                    remove(stream);
+                    stream.pending.clear();
+                    return;
+                }
+            }
+            if (stream.closed) {
+                stream.pending.clear();
+                stream.emitter.complete();
+                return;
+            }
+            stream.writing.set(false);
+            // an event queued after the last poll but before the flag was cleared
+        } while (!stream.pending.isEmpty() && stream.writing.compareAndSet(false, true));
+    }
+
+    private void remove(Stream stream) {
+        streams.computeIfPresent(stream.userId, (id, open) -> {
+            open.remove(stream);
+            return open.isEmpty() ? null : open;
+        });
+    }
+
+    /** An open stream and the events waiting to be written to it */
+    private static final class Stream {
+        private final String userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        /** Kept separately because ConcurrentLinkedQueue.size() walks the whole queue */
+        private final AtomicInteger queued = new AtomicInteger();
+        /** Whether a sender thread is writing to the stream or about to */
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Stream(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind writer for notification rows.
+ *
+ * {@link #write} gives the notification its ID, timestamp and per-user sequence number
+ * straight away and queues it once the surrounding transaction commits. A single writer thread inserts queued rows with
+ * JDBC batches of {@code batch-size}, as soon as a full batch is waiting or at the latest
+ * every {@code flush-interval}. The queue holds at most {@code capacity} rows; when it is
+ * full the calling thread writes a batch itself, which slows producers down to what the
+ * database can take instead of dropping rows or growing without bound. Everything still
+ * queued is written when the application shuts down. Each batch is committed in a
+ * transaction of its own, so a flush from inside another transaction, or from an
+ * after-commit callback, neither joins nor depends on it. A batch that keeps failing is
+ * inserted one row at a time, so a row the database rejects is dropped on its own
+ * instead of taking the rest of its batch with it.
+ *
+ * Sequence numbers come from the user's row in {@code notification_sequence}, created
+ * from the highest one stored the first time they are notified, so every instance counts
+ * from the same place. The row is incremented in a short transaction of its own, so its
+ * lock is never held while the caller's transaction goes on to notify someone else, and
+ * two transactions notifying the same users in different orders cannot deadlock. The
+ * price is that numbers follow the order notifications are written, not the order their
+ * transactions commit, and a rolled back notification leaves a gap.
+ *
+ * Rows become visible to inbox queries up to {@code flush-interval} after the commit, and
+ * rows still queued are lost if the process dies. The push for a notification goes
+ * through the outbox and is not affected.
+ *
+ * Metrics: {@code taskmaster.notifications.writer.rows} (tagged written or dropped),
+ * {@code taskmaster.notifications.writer.flushes}, {@code taskmaster.notifications.writer.backpressure}
+ * and {@code taskmaster.notifications.writer.queue.size}.
+ */
+@Component
+public class NotificationWriter {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationWriter.class);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String NEXT_SEQ = "UPDATE notification_sequence SET seq = seq + 1 WHERE user_id = ?";
+    private static final String FIRST_SEQ =
+            "INSERT INTO notification_sequence (user_id, seq) " +
+            "SELECT ?, COALESCE(MAX(seq), 0) + 1 FROM notification WHERE user_id = ?";
+    private static final String CURRENT_SEQ = "SELECT seq FROM notification_sequence WHERE user_id = ?";
+
+    private static final String INSERT =
+            "INSERT INTO notification (id, user_id, message, task_id, type, is_read, created_at, seq) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    /** Batches are committed on their own, never as part of whatever transaction the flushing thread is in */
+    private final TransactionTemplate batchTransaction;
+    /** Commits on its own, so the sequence row is unlocked before {@link #write} returns */
+    private final TransactionTemplate seqTransaction;
+    private final int batchSize;
+    private final int capacity;
+    private final long flushIntervalNanos;
+    private final Queue<Notification> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * Rows not yet written, including those being inserted right now. Kept separately
+     * because ConcurrentLinkedQueue.size() walks the whole queue.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Thread writerThread;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter backpressure;
+    private final Timer flushes;
+    private volatile boolean running = true;
+
+    public NotificationWriter(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${taskmaster.notifications.writer.batch-size:200}") int batchSize,
+                              @Value("${taskmaster.notifications.writer.capacity:10000}") int capacity,
+                              @Value("${taskmaster.notifications.writer.flush-interval:200ms}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.seqTransaction = new TransactionTemplate(transactionManager);
+        this.seqTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.written = meterRegistry.counter("taskmaster.notifications.writer.rows", "result", "written");
+        this.dropped = meterRegistry.counter("taskmaster.notifications.writer.rows", "result", "dropped");
+        this.backpressure = meterRegistry.counter("taskmaster.notifications.writer.backpressure");
+        this.flushes = meterRegistry.timer("taskmaster.notifications.writer.flushes");
+        Gauge.builder("taskmaster.notifications.writer.queue.size", queued, AtomicInteger::get).register(meterRegistry);
+        this.writerThread = new Thread(this::run, "notification-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queue a notification for insertion once the current transaction commits, or right
+     * away without one. The ID, creation time and sequence number are assigned before
+     * this returns.
+     * @return The same notification, with ID, creation time and sequence number set
+     */
+    public Notification write(Notification notification) {
+        if (notification.getId() == null) {
+            notification.setId(UUID.randomUUID().toString());
+        }
+        if (notification.getCreatedAt() == null) {
+            // stored with microsecond precision, so keep the pushed timestamp consistent with the row
+            notification.setCreatedAt(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        }
+        if (notification.getSeq() == null) {
+            notification.setSeq(nextSeq(notification.getUserId()));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(notification);
+                }
+            });
+        } else {
+            enqueue(notification);
+        }
+        return notification;
+    }
+
+    /**
+     * Write everything queued so far before returning, including batches the writer thread
+     * is inserting at the moment.
+     */
+    public void flush() {
+        while (queued.get() > 0) {
+            if (!writeBatch()) {
+                return;
+            }
+        }
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    private long nextSeq(String userId) {
+        return seqTransaction.execute(status -> {
+            while (jdbcTemplate.update(NEXT_SEQ, userId) == 0) {
+                try {
+                    jdbcTemplate.update(FIRST_SEQ, userId, userId);
+                    break;
+                } catch (DuplicateKeyException e) {
+                    // another instance numbered the user's first notification at the same time
+                }
+            }
+            return jdbcTemplate.queryForObject(CURRENT_SEQ, Long.class, userId);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        // anything that raced with the writer thread stopping
+        flush();
+    }
+
+    private void enqueue(Notification notification) {
+        if (!running) {
+            insert(List.of(notification));
+            return;
+        }
+        while (queued.get() >= capacity) {
+            backpressure.increment();
+            writeBatch();
+        }
+        // count before adding, so a concurrent batch can never take the row before it is counted
+        int size = queued.incrementAndGet();
+        queue.add(notification);
+        if (size >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (queued.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.error("Notification writer failed to flush", e);
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Take up to one batch off the queue and insert it. If the queue is empty while another
+     * thread is still inserting, wait a moment for it instead.
+     * @return false if the batch could not be written
+     */
+    private boolean writeBatch() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        Notification next;
+        while (batch.size() < batchSize && (next = queue.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            return true;
+        }
+        try {
+            return insert(batch);
+        } finally {
+            queued.addAndGet(-batch.size());
+        }
+    }
+
+    /**
+     * @return false if none of the rows could be written
+     */
+    private boolean insert(List<Notification> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flushes.record(() -> batchTransaction.executeWithoutResult(status -> insertBatch(batch)));
+                written.increment(batch.size());
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    if (batch.size() == 1) {
+                        drop(batch.get(0), attempt, e);
+                        return false;
+                    }
+                    logger.warn("Failed to insert {} notifications {} times, inserting them one by one",
+                            batch.size(), attempt, e);
+                    return insertEach(batch);
+                }
+                logger.warn("Failed to insert {} notifications, retrying", batch.size(), e);
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Insert each row in a transaction of its own, dropping the ones that fail.
+     * @return false if none of the rows could be written
+     */
+    private boolean insertEach(List<Notification> batch) {
+        boolean any = false;
+        for (Notification notification : batch) {
+            try {
+                batchTransaction.executeWithoutResult(status -> insertBatch(List.of(notification)));
+                written.increment();
+                any = true;
+            } catch (RuntimeException e) {
+                drop(notification, MAX_ATTEMPTS + 1, e);
+            }
+        }
+        return any;
+    }
+
+    private void insertBatch(List<Notification> batch) {
+        jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, notification) -> {
+            ps.setString(1, notification.getId());
+            ps.setString(2, notification.getUserId());
+            ps.setString(3, notification.getMessage());
+            ps.setString(4, notification.getTaskId());
+            ps.setString(5, notification.getType() == null ? null : notification.getType().name());
+            ps.setBoolean(6, notification.isRead());
+            ps.setObject(7, OffsetDateTime.ofInstant(notification.getCreatedAt(), ZoneOffset.UTC));
+            ps.setObject(8, notification.getSeq());
+        });
+    }
+
+    private void drop(Notification notification, int attempts, RuntimeException e) {
+        dropped.increment();
+        logger.error("Dropping notification {} for user {} after {} failed inserts",
+                notification.getId(), notification.getUserId(), attempts, e);
+    }
+}
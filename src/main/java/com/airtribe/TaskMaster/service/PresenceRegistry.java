@@ -0,0 +1,86 @@
+package com.airtribe.TaskMaster.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The users with an open STOMP session on this instance, and how many each has open.
+ *
+ * Fed by {@code WebSocketAuthChannelInterceptor}: an authenticated CONNECT registers the
+ * session, and the DISCONNECT that follows every closed session, whether the client sent
+ * one or the connection dropped, removes it. A session is removed at most once, so a
+ * client DISCONNECT followed by the session closing counts once. Local delivery asks
+ * {@link #isOnline} before pushing, so no message is built or routed for a user with
+ * no session.
+ *
+ * Metrics: {@code taskmaster.notifications.presence.users} (users online),
+ * {@code taskmaster.notifications.presence.sessions} (open sessions) and
+ * {@code taskmaster.notifications.presence.connects}/{@code .disconnects}.
+ */
+@Component
+public class PresenceRegistry {
+
+    /** Session IDs by user; a user is removed with their last session */
+    private final Map<String, Set<String>> sessions = new ConcurrentHashMap<>();
+    /** User by session ID, so a disconnect can be resolved without a principal */
+    private final Map<String, String> users = new ConcurrentHashMap<>();
+    private final Counter connects;
+    private final Counter disconnects;
+
+    public PresenceRegistry(MeterRegistry meterRegistry) {
+        this.connects = meterRegistry.counter("taskmaster.notifications.presence.connects");
+        this.disconnects = meterRegistry.counter("taskmaster.notifications.presence.disconnects");
+        Gauge.builder("taskmaster.notifications.presence.users", this, PresenceRegistry::onlineUsers)
+                .register(meterRegistry);
+        Gauge.builder("taskmaster.notifications.presence.sessions", this, PresenceRegistry::openSessions)
+                .register(meterRegistry);
+    }
+
+    public void connected(String userId, String sessionId) {
+        if (users.putIfAbsent(sessionId, userId) != null) {
+            return;
+        }
+        sessions.compute(userId, (id, open) -> {
+            Set<String> updated = open == null ? ConcurrentHashMap.newKeySet() : open;
+            updated.add(sessionId);
+            return updated;
+        });
+        connects.increment();
+    }
+
+    public void disconnected(String sessionId) {
+        String userId = users.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+        sessions.computeIfPresent(userId, (id, open) -> {
+            open.remove(sessionId);
+            return open.isEmpty() ? null : open;
+        });
+        disconnects.increment();
+    }
+
+    public boolean isOnline(String userId) {
+        return sessions.containsKey(userId);
+    }
+
+    /** The number of sessions the user has open, one per connected device or tab */
+    public int devices(String userId) {
+        Set<String> open = sessions.get(userId);
+        return open == null ? 0 : open.size();
+    }
+
+    public int onlineUsers() {
+        return sessions.size();
+    }
+
+    public int openSessions() {
+        return users.size();
+    }
+}
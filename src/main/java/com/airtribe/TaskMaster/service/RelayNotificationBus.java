@@ -0,0 +1,178 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPush;
+import com.airtribe.TaskMaster.exception.NotificationException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The bus of several instances, through a {@link NotificationRelayHub} at
+ * {@code relay.host}:{@code relay.port}. Each push is written to the hub as one line of
+ * JSON; every line the hub sends back, including this instance's own pushes, is delivered
+ * locally, one at a time and in the order received, so each user's pushes keep their order.
+ * Pushes are stamped with this instance's ID, so the ones other instances published are
+ * recognized as changes made elsewhere.
+ *
+ * A publish fails while the hub is unreachable, and the dispatcher retries it. The
+ * connection is retried every {@code reconnect-delay}. Pushes sent by other instances
+ * while this one was disconnected are lost to its sessions, so the replay buffer is
+ * cleared on every connect and reconnecting clients are caught up from the database.
+ *
+ * Metrics: {@code taskmaster.notifications.bus.connected} (1 while connected to the hub).
+ */
+@Component
+@ConditionalOnProperty(name = "taskmaster.notifications.bus.type", havingValue = "relay")
+public class RelayNotificationBus implements NotificationBus {
+    private static final Logger logger = LoggerFactory.getLogger(RelayNotificationBus.class);
+
+    private final LocalNotificationDelivery localDelivery;
+    private final ObjectWriter pushWriter;
+    private final ObjectReader pushReader;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final String host;
+    private final int port;
+    private final Duration reconnectDelay;
+    private final ExecutorService receiver;
+    private volatile Socket socket;
+    /** Null while disconnected */
+    private volatile Writer writer;
+    private volatile boolean running = true;
+
+    public RelayNotificationBus(LocalNotificationDelivery localDelivery,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${taskmaster.notifications.bus.relay.host:localhost}") String host,
+                                @Value("${taskmaster.notifications.bus.relay.port:7070}") int port,
+                                @Value("${taskmaster.notifications.bus.relay.reconnect-delay:1s}") Duration reconnectDelay) {
+        this.localDelivery = localDelivery;
+        this.pushWriter = objectMapper.writerFor(NotificationPush.class);
+        this.pushReader = objectMapper.readerFor(NotificationPush.class);
+        this.host = host;
+        this.port = port;
+        this.reconnectDelay = reconnectDelay;
+        this.receiver = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("notification-bus-"));
+        Gauge.builder("taskmaster.notifications.bus.connected", this, bus -> bus.isConnected() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        receiver.execute(this::receive);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        closeSocket();
+        receiver.shutdownNow();
+    }
+
+    @Override
+    public void publish(NotificationPush push) {
+        String line;
+        try {
+            line = pushWriter.writeValueAsString(push.withOrigin(instanceId));
+        } catch (JsonProcessingException e) {
+            throw new NotificationException("Failed to serialize push of notification " + push.notificationId(), e);
+        }
+        Writer out = writer;
+        if (out == null) {
+            throw new NotificationException("Not connected to the notification relay at " + host + ":" + port);
+        }
+        try {
+            synchronized (out) {
+                out.write(line);
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            closeSocket();
+            throw new NotificationException("Failed to publish to the notification relay at " + host + ":" + port, e);
+        }
+    }
+
+    public boolean isConnected() {
+        return writer != null;
+    }
+
+    /** Connect, deliver what the hub sends until the connection drops, and connect again */
+    private void receive() {
+        while (running) {
+            try (Socket connection = new Socket(host, port);
+                 BufferedReader reader = new BufferedReader(
+                         new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                socket = connection;
+                // whatever was buffered may have gaps from the time we were disconnected
+                localDelivery.reset();
+                writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8));
+                logger.info("Connected to the notification relay at {}:{}", host, port);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    deliver(line);
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("Notification relay at {}:{} unreachable, retrying in {}", host, port, reconnectDelay, e);
+                }
+            } finally {
+                writer = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String line) {
+        try {
+            NotificationPush push = pushReader.readValue(line);
+            localDelivery.deliver(push, !instanceId.equals(push.origin()));
+        } catch (Exception e) {
+            // the other instances got it; this one's sessions catch up by replay
+            logger.warn("Failed to deliver a relayed notification push locally", e);
+        }
+    }
+
+    private void closeSocket() {
+        writer = null;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close notification relay connection", e);
+            }
+        }
+    }
+}
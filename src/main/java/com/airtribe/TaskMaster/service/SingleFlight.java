@@ -0,0 +1,81 @@
+package com.airtribe.TaskMaster.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one execution.
+ *
+ * The first caller for a key runs the supplier; callers arriving while it is still running
+ * wait for and share its result (or exception) instead of running their own. Nothing is
+ * cached: once the call finishes the next caller starts a fresh one. Results are shared
+ * between threads, so they must not be mutated by callers.
+ *
+ * Executions and collapsed calls are published as {@code taskmaster.singleflight.calls}
+ * tagged with the flight name and {@code result=executed|collapsed}.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("taskmaster.singleflight.calls", executed, LongAdder::sum)
+                .tags("name", name, "result", "executed")
+                .register(meterRegistry);
+        FunctionCounter.builder("taskmaster.singleflight.calls", collapsed, LongAdder::sum)
+                .tags("name", name, "result", "collapsed")
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            collapsed.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+        executed.increment();
+        try {
+            V result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    public long getCollapsedCount() {
+        return collapsed.sum();
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+}
@@ -0,0 +1,321 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.AssignmentRequest;
+import com.airtribe.TaskMaster.dto.BulkItemResult;
+import com.airtribe.TaskMaster.dto.BulkResult;
+import com.airtribe.TaskMaster.entity.Status;
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.entity.TaskAssignment;
+import com.airtribe.TaskMaster.exception.BadRequestException;
+import com.airtribe.TaskMaster.exception.TaskAlreadyAssignedException;
+import com.airtribe.TaskMaster.repository.TaskArchiveRepository;
+import com.airtribe.TaskMaster.repository.TaskAssignmentRepository;
+import com.airtribe.TaskMaster.repository.TaskClaim;
+import com.airtribe.TaskMaster.repository.TaskRepository;
+import com.airtribe.TaskMaster.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Multi-task operations that would otherwise cost one request and one transaction per task.
+ *
+ * Rows are written through JDBC batches of {@code taskmaster.tasks.bulk.batch-size};
+ * the persistence context is flushed and cleared after each batch so memory stays flat
+ * for large requests. Requests larger than {@code taskmaster.tasks.bulk.max-size} items
+ * are rejected outright.
+ */
+@Service
+public class TaskBulkService {
+    private static final Logger logger = LoggerFactory.getLogger(TaskBulkService.class);
+
+    private final EntityManager entityManager;
+    private final TaskRepository taskRepository;
+    private final TaskAssignmentRepository taskAssignmentRepository;
+    private final TaskArchiveRepository taskArchiveRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final TaskSearchIndex searchIndex;
+    private final TaskCache taskCache;
+    private final int batchSize;
+    private final int maxSize;
+
+    public TaskBulkService(EntityManager entityManager,
+                           TaskRepository taskRepository,
+                           TaskAssignmentRepository taskAssignmentRepository,
+                           TaskArchiveRepository taskArchiveRepository,
+                           UserRepository userRepository,
+                           NotificationService notificationService,
+                           TaskSearchIndex searchIndex,
+                           TaskCache taskCache,
+                           @Value("${taskmaster.tasks.bulk.batch-size:500}") int batchSize,
+                           @Value("${taskmaster.tasks.bulk.max-size:5000}") int maxSize) {
+        this.entityManager = entityManager;
+        this.taskRepository = taskRepository;
+        this.taskAssignmentRepository = taskAssignmentRepository;
+        this.taskArchiveRepository = taskArchiveRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.searchIndex = searchIndex;
+        this.taskCache = taskCache;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Create many tasks in one transaction.
+     *
+     * Every item is validated before anything is written; invalid items are reported in the
+     * result and skipped, valid ones are inserted. A database error rolls back the whole request.
+     */
+    @Transactional
+    public BulkResult createAll(List<Task> tasks, String createdBy) {
+        checkSize(tasks);
+
+        Instant now = Instant.now();
+        List<BulkItemResult> results = new ArrayList<>(tasks.size());
+        List<Task> valid = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            String error = validateNew(task, now);
+            if (error != null) {
+                results.add(BulkItemResult.failed(i, null, error));
+                continue;
+            }
+            task.setCreatedBy(createdBy);
+            task.setDeleted(false);
+            valid.add(task);
+            results.add(null);
+        }
+
+        persistInBatches(valid);
+        searchIndex.indexAll(valid);
+
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, BulkItemResult.succeeded(i, valid.get(next++).getId()));
+            }
+        }
+        logger.info("Bulk created {} of {} tasks for {}", valid.size(), tasks.size(), createdBy);
+        return BulkResult.of(results);
+    }
+
+    /**
+     * Assign many tasks in one transaction.
+     *
+     * Users, tasks and existing active assignments are each resolved with one set-based query,
+     * new assignments are claimed in JDBC batches, and every assignee receives one aggregated
+     * notification. Items naming an unknown user, a missing task or a task that is already
+     * assigned (or listed twice) are reported and skipped, as are tasks that another request
+     * claims between the check and the insert.
+     */
+    @Transactional
+    public BulkResult assignAll(List<AssignmentRequest> requests, String assignedBy) {
+        checkSize(requests);
+        if (assignedBy == null || assignedBy.trim().isEmpty()) {
+            throw new BadRequestException("AssignedBy cannot be null or empty");
+        }
+
+        Set<String> taskIds = new HashSet<>();
+        Set<String> userIds = new HashSet<>();
+        for (AssignmentRequest request : requests) {
+            if (request != null && !isBlank(request.getTaskId()) && !isBlank(request.getUserId())) {
+                taskIds.add(request.getTaskId());
+                userIds.add(request.getUserId());
+            }
+        }
+
+        Set<String> knownUsers = userIds.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(userIds));
+        Map<String, Task> tasks = new HashMap<>();
+        if (!taskIds.isEmpty()) {
+            taskRepository.findByIdInAndDeletedFalse(taskIds).forEach(task -> tasks.put(task.getId(), task));
+        }
+        Map<String, String> activeAssignees = new HashMap<>();
+        if (!tasks.isEmpty()) {
+            taskAssignmentRepository.findWithTaskByTaskIdInAndStatus(tasks.keySet(), Status.PENDING)
+                    .forEach(assignment -> activeAssignees.put(assignment.getTask().getId(), assignment.getAssignedTo()));
+        }
+
+        List<BulkItemResult> results = new ArrayList<>(requests.size());
+        List<TaskAssignment> assignments = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            AssignmentRequest request = requests.get(i);
+            String error = validateAssignment(request, knownUsers, tasks, activeAssignees);
+            if (error != null) {
+                results.add(BulkItemResult.failed(i, null, error));
+                continue;
+            }
+            // later items for the same task see it as taken
+            activeAssignees.put(request.getTaskId(), request.getUserId());
+            assignments.add(TaskAssignment.builder()
+                    .task(tasks.get(request.getTaskId()))
+                    .assignedTo(request.getUserId())
+                    .assignedBy(assignedBy)
+                    .status(Status.PENDING)
+                    .build());
+            results.add(null);
+        }
+
+        List<TaskClaim> claims = taskAssignmentRepository.claimAll(assignments, batchSize);
+
+        // notified in user ID order, so requests naming the same users lock them in the same order
+        Map<String, List<Task>> tasksByAssignee = new TreeMap<>();
+        int next = 0;
+        int assigned = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) != null) {
+                continue;
+            }
+            TaskAssignment assignment = assignments.get(next);
+            TaskClaim claim = claims.get(next++);
+            if (!claim.isWon()) {
+                // assigned by someone else since the check above
+                String taskId = assignment.getTask().getId();
+                results.set(i, BulkItemResult.failed(i, null,
+                        new TaskAlreadyAssignedException(taskId, claim.getAssignedTo()).getMessage()));
+                continue;
+            }
+            results.set(i, BulkItemResult.succeeded(i, claim.getAssignmentId()));
+            tasksByAssignee.computeIfAbsent(assignment.getAssignedTo(), user -> new ArrayList<>()).add(assignment.getTask());
+            assigned++;
+        }
+        tasksByAssignee.forEach((userId, tasksAssigned) -> notificationService.notifyTasksAssigned(userId, tasksAssigned, assignedBy));
+
+        logger.info("Bulk assigned {} of {} tasks to {} users", assigned, requests.size(), tasksByAssignee.size());
+        return BulkResult.of(results);
+    }
+
+    /**
+     * Complete many tasks in one transaction with three statements whatever the number of tasks:
+     * lock their active assignments, archive them with one insert-select and delete them.
+     * Tasks without an active assignment, including tasks completed concurrently by someone
+     * else, are reported and skipped.
+     */
+    @Transactional
+    public BulkResult completeAll(List<String> taskIds, String completedBy) {
+        checkSize(taskIds);
+
+        Set<String> requested = new LinkedHashSet<>();
+        for (String taskId : taskIds) {
+            if (!isBlank(taskId)) {
+                requested.add(taskId);
+            }
+        }
+        Set<String> completed = new HashSet<>();
+        if (!requested.isEmpty()) {
+            List<String> assignmentIds = new ArrayList<>();
+            for (TaskAssignmentRepository.AssignmentKey key : taskAssignmentRepository.lockPendingByTaskIdIn(requested)) {
+                assignmentIds.add(key.getId());
+                completed.add(key.getTaskId());
+            }
+            if (!assignmentIds.isEmpty()) {
+                Instant completedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+                taskArchiveRepository.archiveAssignments(assignmentIds, completedBy, completedAt);
+                taskAssignmentRepository.deleteAllByIdInBatch(assignmentIds);
+                completed.forEach(taskCache::evict);
+            }
+        }
+
+        List<BulkItemResult> results = new ArrayList<>(taskIds.size());
+        Set<String> reported = new HashSet<>();
+        for (int i = 0; i < taskIds.size(); i++) {
+            String taskId = taskIds.get(i);
+            if (isBlank(taskId)) {
+                results.add(BulkItemResult.failed(i, null, "Task ID cannot be null or empty"));
+            } else if (!reported.add(taskId)) {
+                results.add(BulkItemResult.failed(i, taskId, "Task appears more than once in the request"));
+            } else if (completed.contains(taskId)) {
+                results.add(BulkItemResult.succeeded(i, taskId));
+            } else {
+                results.add(BulkItemResult.failed(i, taskId, "No active assignment found for task: " + taskId));
+            }
+        }
+        logger.info("Bulk completed {} of {} tasks for {}", completed.size(), taskIds.size(), completedBy);
+        return BulkResult.of(results);
+    }
+
+    private void persistInBatches(List<?> entities) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            for (int i = 0; i < entities.size(); i++) {
+                entityManager.persist(entities.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+
+    private void checkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new BadRequestException("Request must contain at least one item");
+        }
+        if (items.size() > maxSize) {
+            throw new BadRequestException("Request must not contain more than " + maxSize + " items");
+        }
+    }
+
+    private static String validateAssignment(AssignmentRequest request, Set<String> knownUsers,
+                                             Map<String, Task> tasks, Map<String, String> activeAssignees) {
+        if (request == null) {
+            return "Assignment must not be null";
+        }
+        if (isBlank(request.getTaskId())) {
+            return "Task ID cannot be null or empty";
+        }
+        if (isBlank(request.getUserId())) {
+            return "User ID cannot be null or empty";
+        }
+        if (!knownUsers.contains(request.getUserId())) {
+            return "User not found: " + request.getUserId();
+        }
+        if (!tasks.containsKey(request.getTaskId())) {
+            return "Task not found: " + request.getTaskId();
+        }
+        String assignee = activeAssignees.get(request.getTaskId());
+        if (assignee != null) {
+            return new TaskAlreadyAssignedException(request.getTaskId(), assignee).getMessage();
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static String validateNew(Task task, Instant now) {
+        if (task == null) {
+            return "Task must not be null";
+        }
+        if (task.getId() != null) {
+            return "Task id is assigned by the server";
+        }
+        if (task.getDueDate() != null && task.getDueDate().isBefore(now)) {
+            return "Due date cannot be in the past";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,147 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Task;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of task snapshots keyed by task ID.
+ *
+ * Entries are evicted least-recently-used once {@code max-size} is reached and expire
+ * {@code ttl} after being loaded. Callers always get their own detached copy, on a hit, a
+ * miss and in pass-through mode alike, so changing a returned task never changes what is
+ * cached or what another caller sharing the same load was given. Lookups are counted in the
+ * {@code taskmaster.task.cache.requests} metric, tagged hit, miss or bypass.
+ *
+ * With {@code taskmaster.cache.task.enabled=false} the cache runs in pass-through mode:
+ * every lookup is loaded from the database, which makes A/B comparisons easy.
+ */
+@Component
+public class TaskCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+    /** Bumped on every eviction so a load that raced with an update is not cached */
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+    private final Counter evictions;
+
+    public TaskCache(@Value("${taskmaster.cache.task.enabled:true}") boolean enabled,
+                     @Value("${taskmaster.cache.task.max-size:10000}") int maxSize,
+                     @Value("${taskmaster.cache.task.ttl:5m}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean full = size() > TaskCache.this.maxSize;
+                if (full) {
+                    evictions.increment();
+                }
+                return full;
+            }
+        };
+        this.hits = meterRegistry.counter("taskmaster.task.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("taskmaster.task.cache.requests", "result", "miss");
+        this.bypasses = meterRegistry.counter("taskmaster.task.cache.requests", "result", "bypass");
+        this.evictions = meterRegistry.counter("taskmaster.task.cache.evictions");
+        Gauge.builder("taskmaster.task.cache.size", this, TaskCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Get a task from the cache, loading and caching it on a miss. Absent tasks are not cached.
+     * @param taskId The task ID
+     * @param loader Loads the task from the database
+     * @return A copy of the task, or empty if the loader found nothing
+     */
+    public Optional<Task> get(String taskId, Supplier<Optional<Task>> loader) {
+        if (!enabled) {
+            bypasses.increment();
+            return loader.get().map(TaskCache::copy);
+        }
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(taskId);
+            if (entry != null && entry.expiresAt - now > 0) {
+                hits.increment();
+                return Optional.of(copy(entry.task));
+            }
+            if (entry != null) {
+                entries.remove(taskId);
+            }
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        Optional<Task> loaded = loader.get();
+        loaded.ifPresent(task -> {
+            synchronized (entries) {
+                if (generation.get() == loadGeneration) {
+                    entries.put(taskId, new Entry(copy(task), now + ttlNanos));
+                }
+            }
+        });
+        // concurrent callers may share one load, so each gets its own copy of it too
+        return loaded.map(TaskCache::copy);
+    }
+
+    /**
+     * Drop a task from the cache, now and again once the current transaction commits so
+     * that a concurrent read cannot re-cache the pre-commit state.
+     */
+    public void evict(String taskId) {
+        remove(taskId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(taskId);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void remove(String taskId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(taskId);
+        }
+    }
+
+    private static Task copy(Task task) {
+        return task.toBuilder().build();
+    }
+
+    private record Entry(Task task, long expiresAt) {
+    }
+}
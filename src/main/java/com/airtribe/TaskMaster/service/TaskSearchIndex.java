@@ -0,0 +1,301 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.repository.SearchText;
+import com.airtribe.TaskMaster.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over task titles and descriptions.
+ *
+ * Text is tokenized by {@link SearchText}, so "Réview" and "review" hit the same postings.
+ * Each query token is matched as a prefix of the indexed terms and every token of a query
+ * must match (AND); the {@link #intersect} and {@link #union} helpers combine fields for
+ * the AND and OR searches. The SQL fallback applies the same rules.
+ * Matches carry a tf-idf score that callers can use for ranking.
+ *
+ * The index is rebuilt from the database once the application is ready. Until that
+ * finishes {@link #isReady()} returns false and callers are expected to fall back to SQL.
+ */
+@Component
+public class TaskSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TaskSearchIndex.class);
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    public enum Field { TITLE, DESCRIPTION }
+
+    private final TaskRepository taskRepository;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<Runnable> changesDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    private Segment segment = new Segment();
+    private volatile boolean ready = false;
+    private volatile boolean rebuilding = false;
+
+    public TaskSearchIndex(TaskRepository taskRepository, ThreadPoolTaskScheduler taskScheduler) {
+        this.taskRepository = taskRepository;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskScheduler.execute(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Rebuild the whole index from the task table. Changes made while the rebuild is
+     * running are replayed on top of the fresh index before it is marked ready.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+            ready = false;
+            changesDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        Segment fresh = new Segment();
+        try {
+            Slice<Task> slice = taskRepository.findByDeletedFalse(PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id")));
+            while (true) {
+                slice.forEach(task -> fresh.put(task.getId(), task.getTitle(), task.getDescription()));
+                if (!slice.hasNext()) {
+                    break;
+                }
+                slice = taskRepository.findByDeletedFalse(slice.nextPageable());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to rebuild task search index, searches stay on SQL", e);
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            segment = fresh;
+            Runnable change;
+            while ((change = changesDuringRebuild.poll()) != null) {
+                change.run();
+            }
+            rebuilding = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Task search index rebuilt with {} tasks in {} ms",
+                fresh.documentCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Add or replace a task in the index once the surrounding transaction commits.
+     * Deleted tasks are removed instead.
+     */
+    public void index(Task task) {
+        if (task == null || task.getId() == null) {
+            return;
+        }
+        if (task.isDeleted()) {
+            remove(task.getId());
+            return;
+        }
+        String id = task.getId();
+        String title = task.getTitle();
+        String description = task.getDescription();
+        afterCommit(() -> apply(() -> segment.put(id, title, description)));
+    }
+
+    /**
+     * Add many new tasks at once, applied under a single write lock after commit.
+     */
+    public void indexAll(Collection<Task> tasks) {
+        List<String[]> documents = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (task != null && task.getId() != null && !task.isDeleted()) {
+                documents.add(new String[] { task.getId(), task.getTitle(), task.getDescription() });
+            }
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> apply(() -> documents.forEach(document -> segment.put(document[0], document[1], document[2]))));
+    }
+
+    public void remove(String taskId) {
+        if (taskId == null) {
+            return;
+        }
+        afterCommit(() -> apply(() -> segment.remove(taskId)));
+    }
+
+    /**
+     * Find tasks whose field contains every token of the query, as a prefix of an indexed term.
+     * @return matching task ids mapped to their relevance score, or an empty map if nothing matches
+     */
+    public Map<String, Double> match(Field field, String query) {
+        List<String> tokens = SearchText.tokenize(query);
+        if (tokens.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        lock.readLock().lock();
+        try {
+            return segment.match(field, tokens);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the query produces at least one searchable token.
+     */
+    public boolean isSearchable(String query) {
+        return !SearchText.tokenize(query).isEmpty();
+    }
+
+    public static Map<String, Double> intersect(Map<String, Double> left, Map<String, Double> right) {
+        Map<String, Double> smaller = left.size() <= right.size() ? left : right;
+        Map<String, Double> larger = smaller == left ? right : left;
+        Map<String, Double> result = new HashMap<>();
+        smaller.forEach((id, score) -> {
+            Double other = larger.get(id);
+            if (other != null) {
+                result.put(id, score + other);
+            }
+        });
+        return result;
+    }
+
+    public static Map<String, Double> union(Map<String, Double> left, Map<String, Double> right) {
+        Map<String, Double> result = new HashMap<>(left);
+        right.forEach((id, score) -> result.merge(id, score, Double::sum));
+        return result;
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (rebuilding) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * One generation of the index. Not thread-safe on its own; guarded by the outer lock.
+     */
+    private static final class Segment {
+        private final Map<Field, NavigableMap<String, Map<String, Integer>>> postings = new EnumMap<>(Field.class);
+        private final Map<String, Map<Field, List<String>>> documents = new HashMap<>();
+
+        Segment() {
+            for (Field field : Field.values()) {
+                postings.put(field, new TreeMap<>());
+            }
+        }
+
+        int documentCount() {
+            return documents.size();
+        }
+
+        void put(String id, String title, String description) {
+            remove(id);
+            Map<Field, List<String>> fields = new EnumMap<>(Field.class);
+            fields.put(Field.TITLE, SearchText.tokenize(title));
+            fields.put(Field.DESCRIPTION, SearchText.tokenize(description));
+            fields.forEach((field, tokens) -> {
+                NavigableMap<String, Map<String, Integer>> terms = postings.get(field);
+                for (String token : tokens) {
+                    terms.computeIfAbsent(token, t -> new HashMap<>()).merge(id, 1, Integer::sum);
+                }
+            });
+            documents.put(id, fields);
+        }
+
+        void remove(String id) {
+            Map<Field, List<String>> fields = documents.remove(id);
+            if (fields == null) {
+                return;
+            }
+            fields.forEach((field, tokens) -> {
+                NavigableMap<String, Map<String, Integer>> terms = postings.get(field);
+                for (String token : new HashSet<>(tokens)) {
+                    Map<String, Integer> docs = terms.get(token);
+                    if (docs != null) {
+                        docs.remove(id);
+                        if (docs.isEmpty()) {
+                            terms.remove(token);
+                        }
+                    }
+                }
+            });
+        }
+
+        Map<String, Double> match(Field field, List<String> tokens) {
+            NavigableMap<String, Map<String, Integer>> terms = postings.get(field);
+            double total = Math.max(documents.size(), 1);
+            Map<String, Double> result = null;
+            for (String token : new LinkedHashSet<>(tokens)) {
+                Map<String, Double> tokenMatches = new HashMap<>();
+                for (Map.Entry<String, Map<String, Integer>> term
+                        : terms.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                    Map<String, Integer> docs = term.getValue();
+                    double idf = Math.log(1 + total / docs.size());
+                    // exact term hits rank above prefix hits
+                    double weight = term.getKey().equals(token) ? idf : idf / 2;
+                    docs.forEach((id, tf) -> tokenMatches.merge(id, tf * weight, Double::sum));
+                }
+                result = result == null ? tokenMatches : intersect(result, tokenMatches);
+                if (result.isEmpty()) {
+                    return Collections.emptyMap();
+                }
+            }
+            return result;
+        }
+    }
+}
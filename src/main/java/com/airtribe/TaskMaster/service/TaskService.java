@@ -1,21 +1,35 @@
 package com.airtribe.TaskMaster.service;
 
+import com.airtribe.TaskMaster.dto.CursorPage;
+import com.airtribe.TaskMaster.dto.PageCursor;
 import com.airtribe.TaskMaster.entity.Status;
 import com.airtribe.TaskMaster.entity.Task;
 import com.airtribe.TaskMaster.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.time.Instant;
-import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import com.airtribe.TaskMaster.entity.*;
 import com.airtribe.TaskMaster.repository.*;
 import com.airtribe.TaskMaster.exception.TaskAlreadyAssignedException;
+import com.airtribe.TaskMaster.exception.TaskAlreadyCompletedException;
 import com.airtribe.TaskMaster.exception.TaskDeletionException;
 import com.airtribe.TaskMaster.exception.BadRequestException;
 import com.airtribe.TaskMaster.entity.SortDirection;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,76 +37,100 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class TaskService {
     private static final Logger logger = LoggerFactory.getLogger(TaskService.class);
+    private static final Instant END_OF_TIME = Instant.parse("9999-12-31T23:59:59Z");
+    private static final List<Priority> CLAIM_ORDER = List.of(Priority.HIGH, Priority.MEDIUM, Priority.LOW);
+    // Candidates read per query where SKIP LOCKED is unavailable, and how often to re-read them when all were taken
+    private static final int CLAIM_CANDIDATES = 10;
+    private static final int CLAIM_ROUNDS = 5;
+    // Largest search match set sent to the database as an ID list; larger ones are found by walking the sort index
+    private static final int MAX_ID_FILTER = 1000;
+    private static final int MATCH_SCAN_BATCH = 500;
+    private static final int MAX_MATCH_SCAN = 5000;
     private final TaskRepository taskRepository;
     private final NotificationService notificationService;
     private final UserService userService;
     private final TaskAssignmentRepository taskAssignmentRepository;
     private final TaskArchiveRepository taskArchiveRepository;
+    private final TaskSearchIndex searchIndex;
+    private final TaskCache taskCache;
+    private final SingleFlight<String, Optional<Task>> findByIdFlight;
+    private final SingleFlight<List<Object>, CursorPage<Task>> searchFlight;
 
     @Autowired
     public TaskService(TaskRepository taskRepository, 
                      NotificationService notificationService, 
                      UserService userService,
                      TaskAssignmentRepository taskAssignmentRepository,
-                     TaskArchiveRepository taskArchiveRepository) {
+                     TaskArchiveRepository taskArchiveRepository,
+                     TaskSearchIndex searchIndex,
+                     TaskCache taskCache,
+                     MeterRegistry meterRegistry) {
         this.taskRepository = taskRepository;
         this.notificationService = notificationService;
         this.userService = userService;
         this.taskAssignmentRepository = taskAssignmentRepository;
         this.taskArchiveRepository = taskArchiveRepository;
+        this.searchIndex = searchIndex;
+        this.taskCache = taskCache;
+        this.findByIdFlight = new SingleFlight<>("task.findById", meterRegistry);
+        this.searchFlight = new SingleFlight<>("task.search", meterRegistry);
+    }
+
+    /**
+     * Give PENDING assignments created before the active_slot column existed their slot,
+     * so the uniqueness guarantee of {@link TaskAssignmentRepository#claim} covers them too.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillActiveSlots() {
+        try {
+            int updated = taskAssignmentRepository.backfillActiveSlots();
+            if (updated > 0) {
+                logger.info("Backfilled active slot of {} pending task assignments", updated);
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Could not backfill active slots: some tasks have more than one pending assignment", e);
+        }
     }
 
     public Task create(Task task) {
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        searchIndex.index(saved);
+        return saved;
     }
 
     public Task update(Task task, TaskAssignment assignment) {
         Task savedTask = taskRepository.save(task);
+        taskCache.evict(savedTask.getId());
         notificationService.notifyTaskUpdate(savedTask, assignment);
         return savedTask;
     }
 
+    /**
+     * Complete a task with three set-based statements: lock its active assignment, archive it with
+     * an insert-select (time taken is computed by the database) and delete it. The task is
+     * evicted from the task cache and the one returned is read back through it.
+     */
     @Transactional
     public Task completeTask(String taskId, String completedBy) {
-        // Find task and active assignment
-        Task task = taskRepository.findById(taskId)
-                .orElseThrow(() -> new RuntimeException("Task not found: " + taskId));
-
-        TaskAssignment assignment = taskAssignmentRepository.findFirstByTaskAndStatusOrderByAssignedAtDesc(task, Status.PENDING)
-                .orElseThrow(() -> new RuntimeException("No active assignment found for task: " + taskId));
-
-        // Create archive entry
-        TaskArchive archive = TaskArchive.builder()
-                .task(task)
-                .completedBy(completedBy)
-                .completedAt(Instant.now())
-                .assignedTo(assignment.getAssignedTo())
-                .assignedBy(assignment.getAssignedBy())
-                .assignedAt(assignment.getAssignedAt())
-                .build();
-
-        // Save archive and delete assignment
-        taskArchiveRepository.save(archive);
-        taskAssignmentRepository.delete(assignment);
-        logger.info("Deleted task assignment for completed task: {}", taskId);
-
-        // Calculate time taken
-        if (task.getDueDate() != null) {
-            Duration timeTaken = Duration.between(assignment.getAssignedAt(), archive.getCompletedAt());
-            Duration expectedTime = Duration.between(assignment.getAssignedAt(), task.getDueDate());
-            
-            if (timeTaken.compareTo(expectedTime) <= 0) {
-                logger.info("Task {} completed by {} in {} minutes (before deadline)", 
-                    taskId, completedBy, timeTaken.toMinutes());
-            } else {
-                logger.info("Task {} completed by {} in {} minutes (after deadline)", 
-                    taskId, completedBy, timeTaken.toMinutes());
+        List<String> assignmentIds = taskAssignmentRepository.lockPendingByTaskIdIn(List.of(taskId)).stream()
+                .map(TaskAssignmentRepository.AssignmentKey::getId)
+                .toList();
+        if (assignmentIds.isEmpty()) {
+            Task task = taskRepository.findById(taskId)
+                    .orElseThrow(() -> new RuntimeException("Task not found: " + taskId));
+            if (taskArchiveRepository.existsByTask(task)) {
+                throw new TaskAlreadyCompletedException(taskId);
             }
-        } else {
-            logger.info("Task {} completed by {} (no due date set)", taskId, completedBy);
+            throw new RuntimeException("No active assignment found for task: " + taskId);
         }
 
-        return task;
+        Instant completedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        taskArchiveRepository.archiveAssignments(assignmentIds, completedBy, completedAt);
+        taskAssignmentRepository.deleteAllByIdInBatch(assignmentIds);
+        taskCache.evict(taskId);
+        logger.info("Task {} completed by {}", taskId, completedBy);
+
+        return findById(taskId);
     }
 
     /**
@@ -135,34 +173,78 @@ public class TaskService {
         task.setDeletedAt(Instant.now());
         task.setDeletedBy(userId);
         taskRepository.save(task);
+        taskCache.evict(taskId);
+        searchIndex.remove(taskId);
         
         logger.info("Task {} marked as deleted by user {}", taskId, userId);
     }
 
+    /**
+     * Find a task by ID, served from the task cache when possible. Concurrent cache misses
+     * for the same ID share one database read.
+     * The returned task is a detached snapshot of its own, even when the read was shared; use the
+     * repository to load a task for modification.
+     */
     public Task findById(String id) {
-        return taskRepository.findById(id)
+        return taskCache.get(id, () -> findByIdFlight.execute(id, () -> taskRepository.findById(id)))
                 .orElseThrow(() -> new RuntimeException("Task not found: " + id));
     }
 
-    public List<Task> findByUser(String userId) {
-        // Find all active assignments for user
-        return taskRepository.findAll().stream()
-            .filter(task -> taskAssignmentRepository.findFirstByTaskAndStatusOrderByAssignedAtDesc(task, Status.PENDING)
-                .map(assignment -> assignment.getAssignedTo().equals(userId))
-                .orElse(false))
-            .toList();
+    /**
+     * Find a page of the tasks actively assigned to a user, most recently assigned first
+     * @param userId The assignee
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of tasks to return
+     * @return Tasks with a pending assignment to the user
+     */
+    public CursorPage<Task> findByUser(String userId, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor, "assignedAt", SortDirection.DESC);
+        List<TaskAssignment> assignments = taskAssignmentRepository.findWithTaskByAssignedToAndStatusAfter(
+            userId, Status.PENDING,
+            after != null ? after.instantValue() : END_OF_TIME,
+            after != null ? after.getId() : "",
+            Limit.of(limit + 1));
+        String nextCursor = null;
+        if (assignments.size() > limit) {
+            assignments = assignments.subList(0, limit);
+            TaskAssignment last = assignments.get(limit - 1);
+            nextCursor = new PageCursor("assignedAt", SortDirection.DESC, last.getAssignedAt().toString(), last.getId()).encode();
+        }
+        return new CursorPage<>(assignments.stream().map(TaskAssignment::getTask).toList(), nextCursor);
     }
 
-    public List<Task> findByStatus(Status status) {
-        // Find tasks by assignment status
-        return taskRepository.findAll().stream()
-            .filter(task -> taskAssignmentRepository.findFirstByTaskAndStatusOrderByAssignedAtDesc(task, status)
-                .isPresent())
-            .toList();
+    /**
+     * Find a page of tasks with an assignment in the given status, ordered by task ID
+     * @param status The assignment status
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of tasks to return
+     * @return Tasks with an assignment in the status
+     */
+    public CursorPage<Task> findByStatus(Status status, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor, "id", SortDirection.ASC);
+        List<Task> tasks = taskAssignmentRepository.findTasksByStatusAfter(
+            status, after != null ? after.getId() : "", Limit.of(limit + 1));
+        String nextCursor = null;
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            String lastId = tasks.get(limit - 1).getId();
+            nextCursor = new PageCursor("id", SortDirection.ASC, lastId, lastId).encode();
+        }
+        return new CursorPage<>(tasks, nextCursor);
     }
 
-    public List<Task> findAll() {
-        return taskRepository.findAll();
+    /**
+     * List the tasks matching a filter
+     * @param filter Criteria to apply; sorting, cursor and limit are set from the other arguments
+     * @param sortField Field to sort by (createdAt, updatedAt, dueDate, title or description)
+     * @param sortDir Sort direction (ASC or DESC)
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of tasks to return
+     * @return One page of tasks
+     */
+    public CursorPage<Task> findAll(TaskFilter.TaskFilterBuilder filter, String sortField, SortDirection sortDir,
+                                    String cursor, int limit) {
+        return findPage(filter, sortField, sortDir, cursor, limit);
     }
 
     @Transactional
@@ -188,94 +270,151 @@ public class TaskService {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found: " + taskId));
 
-        // Check if task has a pending assignment
-        Optional<TaskAssignment> currentAssignment = taskAssignmentRepository.findActiveAssignment(task);
-        if (currentAssignment.isPresent()) {
-            TaskAssignment existing = currentAssignment.get();
-            throw new TaskAlreadyAssignedException(taskId, existing.getAssignedTo());
+        // Claim the task's active-assignment slot; a concurrent assign of the same task loses here
+        TaskClaim claim = taskAssignmentRepository.claim(taskId, userId, assignedBy);
+        if (!claim.isWon()) {
+            throw new TaskAlreadyAssignedException(taskId, claim.getAssignedTo());
         }
+        logger.info("Created task assignment for task {} to user {}", taskId, userId);
 
-        logger.debug("Current task state: {}", task);
-
-        // Create task assignment
         TaskAssignment assignment = TaskAssignment.builder()
+                .id(claim.getAssignmentId())
                 .task(task)
                 .assignedTo(userId)
                 .assignedBy(assignedBy)
                 .status(Status.PENDING)
                 .build();
-
-        assignment = taskAssignmentRepository.save(assignment);
-        logger.info("Created task assignment for task {} to user {}", taskId, userId);
-
         notificationService.notifyTaskAssignment(userId, task, assignment);
         return task;
     }
 
+    /**
+     * Claim the next unassigned task matching the filter for a user: highest priority first,
+     * then earliest due date, tasks without a due date last.
+     *
+     * Where the database supports it, candidates are read with {@code FOR UPDATE SKIP LOCKED},
+     * so parallel callers walk past each other's rows instead of queueing on them. Elsewhere
+     * (H2) a few candidates are read without locks and tried in order. Either way the task is
+     * taken through {@link TaskAssignmentRepository#claim}, so no task is handed out twice.
+     * @param filter Optional criteria (title, createdBy, due range, ...)
+     * @param priority Only consider this priority, or null for all
+     * @param username The claiming user, who becomes the assignee and is recorded as assigner
+     * @return The claimed task, or empty if no unassigned task matches
+     */
+    @Transactional
+    public Optional<Task> claimNext(TaskFilter.TaskFilterBuilder filter, Priority priority, String username) {
+        String userId = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username))
+                .getId();
+        int batch = taskRepository.supportsSkipLocked() ? 1 : CLAIM_CANDIDATES;
+        for (Priority bucket : priority != null ? List.of(priority) : CLAIM_ORDER) {
+            TaskFilter criteria = filter.priority(bucket).limit(batch).build();
+            for (boolean withDueDate : new boolean[] { true, false }) {
+                for (int round = 0; round < CLAIM_ROUNDS; round++) {
+                    List<Task> candidates = taskRepository.findClaimCandidates(criteria, withDueDate);
+                    if (candidates.isEmpty()) {
+                        break;
+                    }
+                    for (Task task : candidates) {
+                        TaskClaim claim = taskAssignmentRepository.claim(task.getId(), userId, username);
+                        if (claim.isWon()) {
+                            logger.info("User {} claimed task {}", userId, task.getId());
+                            notificationService.notifyTaskAssignment(userId, task, TaskAssignment.builder()
+                                    .id(claim.getAssignmentId())
+                                    .task(task)
+                                    .assignedTo(userId)
+                                    .assignedBy(username)
+                                    .status(Status.PENDING)
+                                    .build());
+                            return Optional.of(task);
+                        }
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
     /**
      * Search tasks by title with optional sorting
      * @param title The title search term
-     * @param sortField Field to sort by (title, description, or createdAt)
+     * @param sortField Field to sort by (createdAt, updatedAt, dueDate, title, description or relevance)
      * @param sortDir Sort direction (ASC or DESC)
-     * @return List of tasks with matching title
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of tasks to return
+     * @return One page of tasks with matching title
      */
-    public List<Task> searchByTitle(String title, String sortField, SortDirection sortDir) {
-        String field = sortField != null ? sortField : "createdAt";
-        if (sortDir == SortDirection.ASC) {
-            return taskRepository.findByTitleContainingIgnoreCaseAndDeletedFalseAsc(title, field);
-        } else {
-            return taskRepository.findByTitleContainingIgnoreCaseAndDeletedFalseDesc(title, field);
-        }
+    public CursorPage<Task> searchByTitle(String title, String sortField, SortDirection sortDir, String cursor, int limit) {
+        return searchFlight.execute(Arrays.asList("searchByTitle", title, sortField, sortDir, cursor, limit), () -> {
+            if (searchIndex.isReady() && searchIndex.isSearchable(title)) {
+                return pageMatches(searchIndex.match(TaskSearchIndex.Field.TITLE, title), sortField, sortDir, cursor, limit);
+            }
+            return findPage(TaskFilter.builder().title(title), sortField, sortDir, cursor, limit);
+        });
     }
 
     /**
      * Search tasks by description with optional sorting
      * @param description The description search term
-     * @param sortField Field to sort by (title, description, or createdAt)
+     * @param sortField Field to sort by (createdAt, updatedAt, dueDate, title, description or relevance)
      * @param sortDir Sort direction (ASC or DESC)
-     * @return List of tasks with matching description
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of tasks to return
+     * @return One page of tasks with matching description
      */
-    public List<Task> searchByDescription(String description, String sortField, SortDirection sortDir) {
-        String field = sortField != null ? sortField : "createdAt";
-        if (sortDir == SortDirection.ASC) {
-            return taskRepository.findByDescriptionContainingIgnoreCaseAndDeletedFalseAsc(description, field);
-        } else {
-            return taskRepository.findByDescriptionContainingIgnoreCaseAndDeletedFalseDesc(description, field);
-        }
+    public CursorPage<Task> searchByDescription(String description, String sortField, SortDirection sortDir, String cursor, int limit) {
+        return searchFlight.execute(Arrays.asList("searchByDescription", description, sortField, sortDir, cursor, limit), () -> {
+            if (searchIndex.isReady() && searchIndex.isSearchable(description)) {
+                return pageMatches(searchIndex.match(TaskSearchIndex.Field.DESCRIPTION, description), sortField, sortDir, cursor, limit);
+            }
+            return findPage(TaskFilter.builder().description(description), sortField, sortDir, cursor, limit);
+        });
     }
 
     /**
      * Search tasks that match both title AND description with optional sorting
      * @param title The title search term
      * @param description The description search term
-     * @param sortField Field to sort by (title, description, or createdAt)
+     * @param sortField Field to sort by (createdAt, updatedAt, dueDate, title, description or relevance)
      * @param sortDir Sort direction (ASC or DESC)
-     * @return List of tasks matching both criteria
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of tasks to return
+     * @return One page of tasks matching both criteria
      */
-    public List<Task> searchByTitleAndDescription(String title, String description, String sortField, SortDirection sortDir) {
-        String field = sortField != null ? sortField : "createdAt";
-        if (sortDir == SortDirection.ASC) {
-            return taskRepository.findByTitleAndDescriptionContainingIgnoreCaseAsc(title, description, field);
-        } else {
-            return taskRepository.findByTitleAndDescriptionContainingIgnoreCaseDesc(title, description, field);
-        }
+    public CursorPage<Task> searchByTitleAndDescription(String title, String description, String sortField, SortDirection sortDir,
+                                                        String cursor, int limit) {
+        return searchFlight.execute(Arrays.asList("searchByTitleAndDescription", title, description, sortField, sortDir, cursor, limit), () -> {
+            if (searchIndex.isReady() && searchIndex.isSearchable(title) && searchIndex.isSearchable(description)) {
+                return pageMatches(TaskSearchIndex.intersect(
+                        searchIndex.match(TaskSearchIndex.Field.TITLE, title),
+                        searchIndex.match(TaskSearchIndex.Field.DESCRIPTION, description)), sortField, sortDir, cursor, limit);
+            }
+            return findPage(TaskFilter.builder().title(title).description(description).matchAll(true),
+                    sortField, sortDir, cursor, limit);
+        });
     }
 
     /**
      * Search tasks that match either title OR description with optional sorting
      * @param title The title search term
      * @param description The description search term
-     * @param sortField Field to sort by (title, description, or createdAt)
+     * @param sortField Field to sort by (createdAt, updatedAt, dueDate, title, description or relevance)
      * @param sortDir Sort direction (ASC or DESC)
-     * @return List of tasks matching either criteria
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of tasks to return
+     * @return One page of tasks matching either criteria
      */
-    public List<Task> searchByTitleOrDescription(String title, String description, String sortField, SortDirection sortDir) {
-        String field = sortField != null ? sortField : "createdAt";
-        if (sortDir == SortDirection.ASC) {
-            return taskRepository.findByTitleOrDescriptionContainingIgnoreCaseAsc(title, description, field);
-        } else {
-            return taskRepository.findByTitleOrDescriptionContainingIgnoreCaseDesc(title, description, field);
-        }
+    public CursorPage<Task> searchByTitleOrDescription(String title, String description, String sortField, SortDirection sortDir,
+                                                       String cursor, int limit) {
+        return searchFlight.execute(Arrays.asList("searchByTitleOrDescription", title, description, sortField, sortDir, cursor, limit), () -> {
+            if (searchIndex.isReady() && searchIndex.isSearchable(title) && searchIndex.isSearchable(description)) {
+                return pageMatches(TaskSearchIndex.union(
+                        searchIndex.match(TaskSearchIndex.Field.TITLE, title),
+                        searchIndex.match(TaskSearchIndex.Field.DESCRIPTION, description)), sortField, sortDir, cursor, limit);
+            }
+            return findPage(TaskFilter.builder().title(title).description(description),
+                    sortField, sortDir, cursor, limit);
+        });
     }
 
     public Task updateTask(String taskId, Task updatedTask) {
@@ -288,6 +427,125 @@ public class TaskService {
         existingTask.setPriority(updatedTask.getPriority());
 
         // Save the updated task
-        return taskRepository.save(existingTask);
+        Task saved = taskRepository.save(existingTask);
+        taskCache.evict(taskId);
+        searchIndex.index(saved);
+        return saved;
+    }
+
+    /**
+     * Run a keyset page query, fetching one extra row to tell whether there is a next page.
+     * Title and description criteria match the way the search index does, which the query
+     * can only approximate, so those pages are scanned and checked row by row.
+     */
+    private CursorPage<Task> findPage(TaskFilter.TaskFilterBuilder filter, String sortField, SortDirection sortDir,
+                                      String cursor, int limit) {
+        TaskFilter criteria = filter.build();
+        if (criteria.hasText()) {
+            return scan(filter, criteria.textMatcher(), sortField, sortDir, cursor, limit);
+        }
+        TaskSortField field = sortFieldOf(sortField);
+        PageCursor after = PageCursor.decode(cursor, field.getProperty(), sortDir);
+        List<Task> tasks = taskRepository.findPage(filter
+                .sortField(field)
+                .direction(sortDir)
+                .after(after)
+                .limit(limit + 1)
+                .build());
+        String nextCursor = null;
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            Task last = tasks.get(limit - 1);
+            nextCursor = new PageCursor(field.getProperty(), sortDir, field.valueOf(last), last.getId()).encode();
+        }
+        return new CursorPage<>(tasks, nextCursor);
+    }
+
+    /**
+     * Page through the tasks matched by the search index. Relevance is only known to the index,
+     * so that ordering is paginated in memory on (score, id); column orderings go to the database
+     * restricted to the matched IDs, or walk the column's index when there are too many to send.
+     */
+    private CursorPage<Task> pageMatches(Map<String, Double> matches, String sortField, SortDirection sortDir,
+                                         String cursor, int limit) {
+        if (!"relevance".equals(sortField)) {
+            if (matches.size() <= MAX_ID_FILTER) {
+                return findPage(TaskFilter.builder().ids(matches.keySet()), sortField, sortDir, cursor, limit);
+            }
+            return scan(TaskFilter.builder(), task -> matches.containsKey(task.getId()), sortField, sortDir, cursor, limit);
+        }
+        PageCursor after = PageCursor.decode(cursor, "relevance", sortDir);
+        Comparator<Map.Entry<String, Double>> order = Map.Entry.<String, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey());
+        if (sortDir != SortDirection.ASC) {
+            order = order.reversed();
+        }
+        Map.Entry<String, Double> position = after != null ? Map.entry(after.getId(), after.doubleValue()) : null;
+        Comparator<Map.Entry<String, Double>> finalOrder = order;
+        List<Map.Entry<String, Double>> page = matches.entrySet().stream()
+                .filter(entry -> position == null || finalOrder.compare(entry, position) > 0)
+                .sorted(order)
+                .limit(limit + 1L)
+                .toList();
+        String nextCursor = null;
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            Map.Entry<String, Double> last = page.get(limit - 1);
+            nextCursor = new PageCursor("relevance", sortDir, last.getValue().toString(), last.getKey()).encode();
+        }
+        Map<String, Task> tasks = new HashMap<>();
+        taskRepository.findAllById(page.stream().map(Map.Entry::getKey).toList())
+                .forEach(task -> tasks.put(task.getId(), task));
+        return new CursorPage<>(page.stream()
+                .map(entry -> tasks.get(entry.getKey()))
+                .filter(task -> task != null && !task.isDeleted())
+                .toList(), nextCursor);
+    }
+
+    /**
+     * Page through the tasks of the filter that also pass a check the query cannot express:
+     * a match set too large for an IN list, or the exact search rules. Walks the sort
+     * column's index in batches and keeps the tasks that pass. Either way most rows read
+     * pass, so few are skipped; at most {@link #MAX_MATCH_SCAN} rows are read per page, and
+     * a page that reaches that bound is returned short, with a cursor to continue from.
+     */
+    private CursorPage<Task> scan(TaskFilter.TaskFilterBuilder filter, Predicate<Task> keep, String sortField,
+                                  SortDirection sortDir, String cursor, int limit) {
+        TaskSortField field = sortFieldOf(sortField);
+        PageCursor after = PageCursor.decode(cursor, field.getProperty(), sortDir);
+        List<Task> page = new ArrayList<>();
+        int scanned = 0;
+        while (true) {
+            List<Task> batch = taskRepository.findPage(filter
+                    .sortField(field)
+                    .direction(sortDir)
+                    .after(after)
+                    .limit(MATCH_SCAN_BATCH)
+                    .build());
+            for (Task task : batch) {
+                if (!keep.test(task)) {
+                    continue;
+                }
+                if (page.size() == limit) {
+                    Task last = page.get(limit - 1);
+                    return new CursorPage<>(page, new PageCursor(field.getProperty(), sortDir, field.valueOf(last), last.getId()).encode());
+                }
+                page.add(task);
+            }
+            scanned += batch.size();
+            if (batch.size() < MATCH_SCAN_BATCH) {
+                return new CursorPage<>(page, null);
+            }
+            Task last = batch.get(batch.size() - 1);
+            after = new PageCursor(field.getProperty(), sortDir, field.valueOf(last), last.getId());
+            if (scanned >= MAX_MATCH_SCAN) {
+                return new CursorPage<>(page, after.encode());
+            }
+        }
+    }
+
+    private static TaskSortField sortFieldOf(String sortField) {
+        // relevance is only known to the search index, SQL fallbacks order by creation instead
+        return "relevance".equals(sortField) ? TaskSortField.CREATED_AT : TaskSortField.from(sortField);
     }
 }
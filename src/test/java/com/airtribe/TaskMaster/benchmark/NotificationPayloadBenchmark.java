@@ -0,0 +1,117 @@
+package com.airtribe.TaskMaster.benchmark;
+
+import com.airtribe.TaskMaster.dto.NotificationPayload;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bytes allocated per task assignment push: a HashMap serialized for the outbox, read back
+ * and converted again for the broker, against a payload record serialized once by a cached
+ * writer and sent as encoded bytes. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class NotificationPayloadBenchmark {
+
+    private static final int NOTIFICATIONS = 20_000;
+    private static final int ROUNDS = 3;
+    private static final TypeReference<Map<String, Object>> MESSAGE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectWriter payloadWriter = objectMapper.writerFor(NotificationPayload.class);
+    private final MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(objectMapper);
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void typedPayloads_AllocateLessThanMaps() throws Exception {
+        assertEquals(objectMapper.readTree(mapPush(0).getPayload()), objectMapper.readTree(typedPush(0).getPayload()));
+
+        // warm up both paths before measuring
+        allocatedPerPush(this::mapPush, 2_000);
+        allocatedPerPush(this::typedPush, 2_000);
+
+        long maps = Long.MAX_VALUE;
+        long typed = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            maps = Math.min(maps, allocatedPerPush(this::mapPush, NOTIFICATIONS));
+            typed = Math.min(typed, allocatedPerPush(this::typedPush, NOTIFICATIONS));
+        }
+
+        System.out.printf("%d pushes: map %d bytes/push, typed %d bytes/push, %.1fx less%n",
+                NOTIFICATIONS, maps, typed, (double) maps / typed);
+        assertTrue(typed < maps, "typed payloads should allocate less than maps");
+    }
+
+    private long allocatedPerPush(IntFunction<Message<byte[]>> push, int count) {
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            size += push.apply(i).getPayload().length;
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(size > 0);
+        return allocated / count;
+    }
+
+    /** The push as it used to be built, queued and sent */
+    @SuppressWarnings("unchecked")
+    private Message<byte[]> mapPush(int i) {
+        try {
+            Map<String, Object> messageObj = new HashMap<>();
+            messageObj.put("type", "TASK_ASSIGNED");
+            messageObj.put("message", "Task 'Write the report' assigned by bob");
+            messageObj.put("userId", "alice");
+            messageObj.put("taskId", "task" + i);
+            messageObj.put("taskTitle", "Write the report");
+            messageObj.put("assignedBy", "bob");
+            messageObj.put("dueDate", Instant.ofEpochSecond(1_750_000_000L + i));
+            messageObj.put("taskPriority", "HIGH");
+            messageObj.put("timestamp", 1_750_000_000_000L + i);
+            messageObj.put("notificationId", "n" + i);
+            messageObj.put("seq", (long) i);
+            messageObj.put("read", false);
+            String payload = objectMapper.writeValueAsString(messageObj);
+            return (Message<byte[]>) converter.toMessage(objectMapper.readValue(payload, MESSAGE), null);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Message<byte[]> typedPush(int i) {
+        try {
+            String payload = payloadWriter.writeValueAsString(new NotificationPayload.TaskAssigned(
+                    "Task 'Write the report' assigned by bob", "alice", "task" + i, "Write the report", "bob",
+                    Instant.ofEpochSecond(1_750_000_000L + i), "HIGH", 1_750_000_000_000L + i, "n" + i,
+                    (long) i, false));
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            headers.setLeaveMutable(true);
+            return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), headers.getMessageHeaders());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
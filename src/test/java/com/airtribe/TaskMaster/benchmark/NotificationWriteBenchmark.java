@@ -0,0 +1,94 @@
+package com.airtribe.TaskMaster.benchmark;
+
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.entity.NotificationType;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import com.airtribe.TaskMaster.service.NotificationWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Buffered notification writes against one repository save (and one transaction) per row.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({NotificationWriter.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationWriteBenchmark {
+
+    private static final int NOTIFICATIONS = 5000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private NotificationWriter writer;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @AfterEach
+    void tearDown() {
+        notificationRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void bufferedWrites_FasterThanSavePerRow() {
+        // warm up both paths before measuring
+        savePerRow(200);
+        writeBuffered(200);
+
+        long perRow = Long.MAX_VALUE;
+        long buffered = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            perRow = Math.min(perRow, savePerRow(NOTIFICATIONS));
+            buffered = Math.min(buffered, writeBuffered(NOTIFICATIONS));
+        }
+        assertEquals(2 * (200 + ROUNDS * NOTIFICATIONS), notificationRepository.count());
+
+        System.out.printf("%d notifications: save per row %d ms (%.0f/s), buffered %d ms (%.0f/s), %.1fx%n",
+                NOTIFICATIONS,
+                perRow / 1_000_000, NOTIFICATIONS * 1e9 / perRow,
+                buffered / 1_000_000, NOTIFICATIONS * 1e9 / buffered,
+                (double) perRow / buffered);
+        assertTrue(buffered < perRow, "buffered writes should beat one save per row");
+    }
+
+    private long savePerRow(int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            notificationRepository.save(notification(i));
+        }
+        return System.nanoTime() - start;
+    }
+
+    /** Time until every row is in the database, not just queued */
+    private long writeBuffered(int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            writer.write(notification(i));
+        }
+        writer.flush();
+        return System.nanoTime() - start;
+    }
+
+    private static Notification notification(int i) {
+        return Notification.builder()
+                .userId("user" + (i % 50))
+                .taskId("task" + i)
+                .message("Task 'Imported task " + i + "' assigned by bench")
+                .type(NotificationType.TASK_ASSIGNED)
+                .isRead(false)
+                .build();
+    }
+}
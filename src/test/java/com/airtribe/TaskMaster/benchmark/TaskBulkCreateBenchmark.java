@@ -0,0 +1,117 @@
+package com.airtribe.TaskMaster.benchmark;
+
+import com.airtribe.TaskMaster.dto.BulkResult;
+import com.airtribe.TaskMaster.entity.Priority;
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.repository.TaskRepository;
+import com.airtribe.TaskMaster.service.NotificationService;
+import com.airtribe.TaskMaster.service.TaskBulkService;
+import com.airtribe.TaskMaster.service.TaskCache;
+import com.airtribe.TaskMaster.service.TaskSearchIndex;
+import com.airtribe.TaskMaster.service.TaskService;
+import com.airtribe.TaskMaster.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk creation against one create call (and one transaction) per task.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({TaskService.class, TaskBulkService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskBulkCreateBenchmark {
+
+    private static final int TASKS = 2000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskBulkService taskBulkService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private TaskSearchIndex searchIndex;
+
+    @MockitoBean
+    private TaskCache taskCache;
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void bulkCreate_FasterThanSingleCreates() {
+        // warm up both paths before measuring
+        createOneByOne(100);
+        taskBulkService.createAll(tasks(100), "bench");
+
+        long single = Long.MAX_VALUE;
+        long bulk = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            single = Math.min(single, createOneByOne(TASKS));
+
+            List<Task> tasks = tasks(TASKS);
+            long start = System.nanoTime();
+            BulkResult result = taskBulkService.createAll(tasks, "bench");
+            bulk = Math.min(bulk, System.nanoTime() - start);
+            assertEquals(TASKS, result.getSucceeded());
+        }
+
+        System.out.printf("%d tasks: single creates %d ms, bulk create %d ms (%.1fx)%n",
+                TASKS, single / 1_000_000, bulk / 1_000_000, (double) single / bulk);
+        assertTrue(bulk < single, "bulk create should beat one create per task");
+    }
+
+    private long createOneByOne(int count) {
+        List<Task> tasks = tasks(count);
+        long start = System.nanoTime();
+        for (Task task : tasks) {
+            task.setCreatedBy("bench");
+            taskService.create(task);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(Task.builder()
+                    .title("Imported task " + i)
+                    .description("Sprint import " + i)
+                    .priority(Priority.values()[i % Priority.values().length])
+                    .dueDate(Instant.now().plus(Duration.ofDays(14)))
+                    .build());
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,115 @@
+package com.airtribe.TaskMaster.benchmark;
+
+import com.airtribe.TaskMaster.entity.Priority;
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.repository.TaskAssignmentRepository;
+import com.airtribe.TaskMaster.repository.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput and conflict rate of {@link TaskAssignmentRepository#claim} as the number of
+ * threads racing for the same tasks grows. Every thread tries to claim every task.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskClaimBenchmark {
+
+    private static final int TASKS = 200;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskAssignmentRepository taskAssignmentRepository;
+
+    @AfterEach
+    void tearDown() {
+        taskAssignmentRepository.deleteAllInBatch();
+        taskRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void claim_ThroughputAndConflictRate() throws Exception {
+        // warm up
+        run(2);
+        tearDown();
+
+        System.out.println("threads  attempts  claims/s  conflict rate");
+        for (int threads : THREADS) {
+            Result result = run(threads);
+            System.out.printf("%7d  %8d  %8.0f  %12.1f%%%n", threads, result.attempts,
+                    result.attempts / (result.nanos / 1e9), 100.0 * (result.attempts - TASKS) / result.attempts);
+            tearDown();
+        }
+    }
+
+    private Result run(int threads) throws InterruptedException {
+        List<String> taskIds = seed();
+        ConcurrentHashMap<String, String> winners = new ConcurrentHashMap<>();
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            String user = "worker" + t;
+            List<String> order = new ArrayList<>(taskIds);
+            Collections.shuffle(order);
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (String taskId : order) {
+                    attempts.incrementAndGet();
+                    if (taskAssignmentRepository.claim(taskId, user, "bench").isWon()) {
+                        assertNull(winners.putIfAbsent(taskId, user), "task claimed twice: " + taskId);
+                    }
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        long nanos = System.nanoTime() - begin;
+
+        assertEquals(TASKS, winners.size());
+        assertEquals(TASKS, taskAssignmentRepository.count());
+        return new Result(attempts.get(), nanos);
+    }
+
+    private List<String> seed() {
+        List<Task> tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            tasks.add(Task.builder().title("Task " + i).priority(Priority.MEDIUM).createdBy("bench").build());
+        }
+        return taskRepository.saveAll(tasks).stream().map(Task::getId).toList();
+    }
+
+    private record Result(int attempts, long nanos) {
+    }
+}
@@ -0,0 +1,207 @@
+package com.airtribe.TaskMaster.benchmark;
+
+import com.airtribe.TaskMaster.dto.BulkResult;
+import com.airtribe.TaskMaster.entity.Priority;
+import com.airtribe.TaskMaster.entity.Status;
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.entity.TaskAssignment;
+import com.airtribe.TaskMaster.exception.TaskAlreadyCompletedException;
+import com.airtribe.TaskMaster.repository.TaskArchiveRepository;
+import com.airtribe.TaskMaster.repository.TaskAssignmentRepository;
+import com.airtribe.TaskMaster.repository.TaskRepository;
+import com.airtribe.TaskMaster.service.NotificationService;
+import com.airtribe.TaskMaster.service.TaskBulkService;
+import com.airtribe.TaskMaster.service.TaskCache;
+import com.airtribe.TaskMaster.service.TaskSearchIndex;
+import com.airtribe.TaskMaster.service.TaskService;
+import com.airtribe.TaskMaster.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Completion latency when several clients race to complete the same tasks.
+ * Every task is completed by two threads at once; exactly one of them must win.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({TaskService.class, TaskBulkService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskCompletionBenchmark {
+
+    private static final int TASKS = 500;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskBulkService taskBulkService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskAssignmentRepository taskAssignmentRepository;
+
+    @Autowired
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private TaskSearchIndex searchIndex;
+
+    @MockitoBean
+    private TaskCache taskCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(taskCache.get(anyString(), any())).thenAnswer(invocation ->
+                ((Supplier<Optional<Task>>) invocation.getArgument(1)).get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskArchiveRepository.deleteAllInBatch();
+        taskAssignmentRepository.deleteAllInBatch();
+        taskRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void completeTask_UnderContention() throws Exception {
+        List<String> taskIds = seed(TASKS);
+        List<String> attempts = new ArrayList<>(taskIds);
+        attempts.addAll(taskIds);
+        Collections.shuffle(attempts);
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                await(start);
+                int i;
+                while ((i = next.getAndIncrement()) < attempts.size()) {
+                    long begin = System.nanoTime();
+                    try {
+                        taskService.completeTask(attempts.get(i), "bench");
+                        completed.incrementAndGet();
+                    } catch (TaskAlreadyCompletedException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - begin);
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - begin;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%d completions (%d threads, every task raced twice): %d ms total, p50 %.2f ms, p99 %.2f ms, %d conflicts%n",
+                sorted.size(), THREADS, elapsed / 1_000_000, percentile(sorted, 0.50), percentile(sorted, 0.99), conflicts.get());
+        assertEquals(TASKS, completed.get());
+        assertEquals(TASKS, conflicts.get());
+        assertEquals(TASKS, taskArchiveRepository.count());
+        assertEquals(0, taskAssignmentRepository.count());
+    }
+
+    @Test
+    void completeAll_UnderContention() throws Exception {
+        List<String> taskIds = seed(TASKS);
+        int chunk = 50;
+
+        AtomicInteger succeeded = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        // two threads per chunk of tasks, racing each other
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                await(start);
+                for (int from = 0; from < taskIds.size(); from += chunk) {
+                    BulkResult result = taskBulkService.completeAll(taskIds.subList(from, Math.min(from + chunk, taskIds.size())), "bench");
+                    succeeded.addAndGet(result.getSucceeded());
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - begin;
+
+        System.out.printf("%d tasks bulk-completed in chunks of %d by %d racing threads: %d ms%n",
+                TASKS, chunk, THREADS, elapsed / 1_000_000);
+        assertEquals(TASKS, succeeded.get());
+        assertEquals(TASKS, taskArchiveRepository.count());
+        assertEquals(0, taskAssignmentRepository.count());
+    }
+
+    private List<String> seed(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(Task.builder().title("Task " + i).priority(Priority.MEDIUM).createdBy("bench").build());
+        }
+        tasks = taskRepository.saveAll(tasks);
+        List<TaskAssignment> assignments = new ArrayList<>(count);
+        for (Task task : tasks) {
+            assignments.add(TaskAssignment.builder()
+                    .task(task).assignedTo("bench").assignedBy("bench").status(Status.PENDING).build());
+        }
+        taskAssignmentRepository.saveAll(assignments);
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.airtribe.TaskMaster.controller;
 
 import com.airtribe.TaskMaster.config.TestConfig;
+import com.airtribe.TaskMaster.dto.CursorPage;
 import com.airtribe.TaskMaster.entity.Notification;
 import com.airtribe.TaskMaster.entity.NotificationType;
 import com.airtribe.TaskMaster.service.NotificationService;
@@ -22,6 +23,8 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -66,27 +69,29 @@ class NotificationControllerTest {
     @WithMockUser(username = "testuser")
     void getUnreadNotifications_Success() throws Exception {
         List<Notification> notifications = Arrays.asList(notification);
-        when(notificationService.getUnreadNotifications(anyString())).thenReturn(notifications);
+        when(notificationService.getUnreadNotifications(anyString(), any(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(notifications, null));
 
         mockMvc.perform(get("/api/notifications/unread")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value("notif123"))
-                .andExpect(jsonPath("$[0].message").value("Test notification"))
-                .andExpect(jsonPath("$[0].read").value(false));
+                .andExpect(jsonPath("$.items[0].id").value("notif123"))
+                .andExpect(jsonPath("$.items[0].message").value("Test notification"))
+                .andExpect(jsonPath("$.items[0].read").value(false));
     }
 
     @Test
     @WithMockUser(username = "testuser")
     void getAllNotifications_Success() throws Exception {
         List<Notification> notifications = Arrays.asList(notification);
-        when(notificationService.getUserNotifications(anyString())).thenReturn(notifications);
+        when(notificationService.getUserNotifications(anyString(), any(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(notifications, null));
 
         mockMvc.perform(get("/api/notifications")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value("notif123"))
-                .andExpect(jsonPath("$[0].message").value("Test notification"));
+                .andExpect(jsonPath("$.items[0].id").value("notif123"))
+                .andExpect(jsonPath("$.items[0].message").value("Test notification"));
     }
 
     @Test
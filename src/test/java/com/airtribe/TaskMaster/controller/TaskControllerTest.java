@@ -1,8 +1,10 @@
 package com.airtribe.TaskMaster.controller;
 
 import com.airtribe.TaskMaster.config.TestConfig;
+import com.airtribe.TaskMaster.dto.CursorPage;
 import com.airtribe.TaskMaster.entity.Priority;
 import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.service.TaskBulkService;
 import com.airtribe.TaskMaster.service.TaskService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,6 +27,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -41,6 +44,9 @@ class TaskControllerTest {
     @Mock
     private TaskService taskService;
 
+    @Mock
+    private TaskBulkService taskBulkService;
+
     @Autowired
     private WebApplicationContext webApplicationContext;
 
@@ -101,17 +107,27 @@ class TaskControllerTest {
     @WithMockUser(username = "user123")
     void searchTasks_Success() throws Exception {
         List<Task> tasks = Arrays.asList(task);
-        when(taskService.searchByTitle(eq("Test"), eq("createdAt"), any()))
-                .thenReturn(tasks);
+        when(taskService.searchByTitle(eq("Test"), eq("createdAt"), any(), isNull(), eq(20)))
+                .thenReturn(new CursorPage<>(tasks, "next"));
 
         mockMvc.perform(get("/api/tasks/search")
                 .param("title", "Test")
                 .param("sortField", "createdAt")
                 .param("sortDir", "DESC"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].title").value(task.getTitle()));
+                .andExpect(jsonPath("$.items[0].title").value(task.getTitle()))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        verify(taskService).searchByTitle(eq("Test"), eq("createdAt"), any(), isNull(), eq(20));
+    }
 
-        verify(taskService).searchByTitle(eq("Test"), eq("createdAt"), any());
+    @Test
+    @WithMockUser(username = "user123")
+    void searchTasks_LimitTooLarge_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/tasks/search")
+                .param("title", "Test")
+                .param("limit", "1000"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
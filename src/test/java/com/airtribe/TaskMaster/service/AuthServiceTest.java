@@ -50,10 +50,7 @@ class AuthServiceTest {
 
     @Test
     void signup_Success() {
-        AuthResponse expectedResponse = AuthResponse.builder()
-                .token("jwt-token")
-                .username(user.getUsername())
-                .build();
+        AuthResponse expectedResponse = new AuthResponse("jwt-token", user.getUsername());
         when(service.signup(signupRequest)).thenReturn(expectedResponse);
 
         AuthResponse response = service.signup(signupRequest);
@@ -79,10 +76,7 @@ class AuthServiceTest {
 
     @Test
     void login_Success() {
-        AuthResponse expectedResponse = AuthResponse.builder()
-                .token("jwt-token")
-                .username(user.getUsername())
-                .build();
+        AuthResponse expectedResponse = new AuthResponse("jwt-token", user.getUsername());
         when(service.login(authRequest)).thenReturn(expectedResponse);
 
         AuthResponse response = service.login(authRequest);
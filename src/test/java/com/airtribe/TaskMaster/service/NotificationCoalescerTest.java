@@ -0,0 +1,118 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.NotificationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationCoalescerTest {
+
+    private ThreadPoolTaskScheduler scheduler;
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void submit_BurstIsSentOnceWithLatestStateAndCount() throws Exception {
+        NotificationCoalescer coalescer = coalescer(Duration.ofMillis(200));
+
+        for (int edit = 1; edit <= 5; edit++) {
+            submit(coalescer, "alice", "task1", "edit" + edit);
+        }
+        assertTrue(sent.isEmpty());
+
+        Thread.sleep(600);
+        assertEquals(List.of("alice/task1/edit5x5"), sent);
+        assertEquals(0, coalescer.pending());
+    }
+
+    @Test
+    void submit_KeysAreCoalescedSeparately() throws Exception {
+        NotificationCoalescer coalescer = coalescer(Duration.ofMillis(200));
+
+        submit(coalescer, "alice", "task1", "a");
+        submit(coalescer, "alice", "task2", "b");
+        submit(coalescer, "bob", "task1", "c");
+        submit(coalescer, "alice", "task1", "d");
+
+        Thread.sleep(600);
+        assertEquals(3, sent.size());
+        assertTrue(sent.containsAll(List.of("alice/task1/dx2", "alice/task2/bx1", "bob/task1/cx1")));
+    }
+
+    @Test
+    void submit_NewWindowOpensAfterTheLastOneClosed() throws Exception {
+        NotificationCoalescer coalescer = coalescer(Duration.ofMillis(100));
+
+        submit(coalescer, "alice", "task1", "first");
+        Thread.sleep(400);
+        submit(coalescer, "alice", "task1", "second");
+        Thread.sleep(400);
+
+        assertEquals(List.of("alice/task1/firstx1", "alice/task1/secondx1"), sent);
+    }
+
+    @Test
+    void submit_ZeroWindowSendsImmediately() {
+        NotificationCoalescer coalescer = coalescer(Duration.ZERO);
+
+        submit(coalescer, "alice", "task1", "a");
+        submit(coalescer, "alice", "task1", "b");
+
+        assertEquals(List.of("alice/task1/ax1", "alice/task1/bx1"), sent);
+    }
+
+    @Test
+    void submit_WaitsForCommitAndIgnoresRollback() {
+        NotificationCoalescer coalescer = coalescer(Duration.ofHours(1));
+
+        TransactionSynchronizationManager.initSynchronization();
+        submit(coalescer, "alice", "task1", "rolledBack");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals(0, coalescer.pending());
+
+        TransactionSynchronizationManager.initSynchronization();
+        submit(coalescer, "alice", "task1", "committed");
+        assertEquals(0, coalescer.pending());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals(1, coalescer.pending());
+
+        coalescer.flushAll();
+        assertEquals(List.of("alice/task1/committedx1"), sent);
+    }
+
+    private NotificationCoalescer coalescer(Duration window) {
+        return new NotificationCoalescer(scheduler, new SimpleMeterRegistry(), window);
+    }
+
+    private void submit(NotificationCoalescer coalescer, String userId, String taskId, String state) {
+        coalescer.submit(userId, taskId, NotificationType.TASK_UPDATED,
+                changes -> sent.add(userId + "/" + taskId + "/" + state + "x" + changes));
+    }
+}
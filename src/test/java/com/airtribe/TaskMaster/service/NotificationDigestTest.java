@@ -0,0 +1,158 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPayload;
+import com.airtribe.TaskMaster.dto.NotificationPush;
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.entity.NotificationDelivery;
+import com.airtribe.TaskMaster.entity.NotificationType;
+import com.airtribe.TaskMaster.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDigestTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private NotificationWriter notificationWriter;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private NotificationInboxCache notificationInboxCache;
+
+    @Mock
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NotificationDigest digest;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(notificationWriter.write(any(Notification.class))).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            notification.setId(UUID.randomUUID().toString());
+            notification.setCreatedAt(Instant.now());
+            return notification;
+        });
+        digest = new NotificationDigest(userRepository, notificationWriter, notificationDispatcher,
+                notificationInboxCache, taskScheduler, new ObjectMapper(), transactionManager,
+                new SimpleMeterRegistry(), Duration.ofHours(1));
+        digest.setDelivery("alice", NotificationDelivery.DIGEST);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void absorb_InstantUsersAreNotDigested() {
+        assertFalse(digest.absorb("bob", NotificationType.TASK_ASSIGNED, List.of("task1")));
+        assertEquals(NotificationDelivery.INSTANT, digest.getDelivery("bob"));
+
+        digest.sendAll();
+
+        verifyNoInteractions(notificationWriter, notificationDispatcher);
+    }
+
+    @Test
+    void sendAll_OneNotificationPerUserAndInterval() {
+        for (int i = 0; i < 40; i++) {
+            assertTrue(digest.absorb("alice", NotificationType.TASK_UPDATED, List.of("task" + i)));
+        }
+        digest.absorb("alice", NotificationType.TASK_ASSIGNED, List.of("a1", "a2", "a3"));
+        digest.absorb("alice", NotificationType.TASK_COMPLETED, List.of("task0"));
+
+        digest.sendAll();
+
+        ArgumentCaptor<Notification> notification = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationWriter, times(1)).write(notification.capture());
+        assertEquals(NotificationType.DIGEST, notification.getValue().getType());
+        assertEquals("44 task notifications (3 assigned, 40 updated, 1 completed)", notification.getValue().getMessage());
+
+        ArgumentCaptor<NotificationPayload> message = ArgumentCaptor.forClass(NotificationPayload.class);
+        verify(notificationDispatcher, times(1)).enqueue(eq("alice"), anyString(), message.capture());
+        NotificationPayload.Digest payload = assertInstanceOf(NotificationPayload.Digest.class, message.getValue());
+        assertEquals(44, payload.total());
+        assertEquals(Map.of("TASK_ASSIGNED", 3, "TASK_UPDATED", 40, "TASK_COMPLETED", 1), payload.counts());
+        List<String> newest = IntStream.range(24, 40).mapToObj(i -> "task" + i).toList();
+        List<String> taskIds = payload.taskIds();
+        assertEquals(NotificationDigest.MAX_TASK_IDS, taskIds.size());
+        assertTrue(taskIds.containsAll(newest));
+        assertTrue(taskIds.containsAll(List.of("a1", "a2", "a3", "task0")));
+
+        // nothing new, nothing sent
+        digest.sendAll();
+        verify(notificationWriter, times(1)).write(any(Notification.class));
+    }
+
+    @Test
+    void absorb_OnlyCountsCommittedEvents() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(digest.absorb("alice", NotificationType.TASK_ASSIGNED, List.of("task1")));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        digest.sendAll();
+
+        verifyNoInteractions(notificationWriter, notificationDispatcher);
+    }
+
+    @Test
+    void setDelivery_SwitchingBackToInstantSendsPendingDigest() {
+        digest.absorb("alice", NotificationType.TASK_ASSIGNED, List.of("task1"));
+
+        digest.setDelivery("alice", NotificationDelivery.INSTANT);
+
+        verify(notificationWriter).write(argThat(notification ->
+                notification.getMessage().equals("1 task notification (1 assigned)")));
+        assertFalse(digest.absorb("alice", NotificationType.TASK_ASSIGNED, List.of("task2")));
+    }
+
+    @Test
+    void onRemotePush_AppliesAPreferenceChangedOnAnotherInstance() throws Exception {
+        digest.absorb("alice", NotificationType.TASK_ASSIGNED, List.of("task1"));
+        String payload = new ObjectMapper().writeValueAsString(new NotificationPayload.DeliveryChanged(
+                "alice", NotificationDelivery.INSTANT.name(), Instant.now().toEpochMilli()));
+
+        digest.onRemotePush(new LocalNotificationDelivery.RemotePush(new NotificationPush(
+                "other-instance", "alice", null, null, "/user/alice/notifications", payload)));
+
+        assertEquals(NotificationDelivery.INSTANT, digest.getDelivery("alice"));
+        verify(notificationWriter).write(argThat(notification ->
+                notification.getMessage().equals("1 task notification (1 assigned)")));
+    }
+}
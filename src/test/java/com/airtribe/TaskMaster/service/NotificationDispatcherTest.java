@@ -0,0 +1,376 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPayload;
+import com.airtribe.TaskMaster.entity.NotificationOutbox;
+import com.airtribe.TaskMaster.entity.NotificationOutboxLock;
+import com.airtribe.TaskMaster.repository.NotificationOutboxLockRepository;
+import com.airtribe.TaskMaster.repository.NotificationOutboxRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "taskmaster.notifications.outbox.batch-size=5",
+        "taskmaster.notifications.outbox.max-attempts=3",
+        "taskmaster.notifications.outbox.retry-backoff=20ms"
+})
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({NotificationDispatcher.class, LoopbackNotificationBus.class, LocalNotificationDelivery.class,
+        SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationDispatcherTest {
+
+    @Autowired
+    private NotificationDispatcher dispatcher;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationOutboxLockRepository lockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @MockitoBean
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @MockitoBean
+    private NotificationStream notificationStream;
+
+    @MockitoBean
+    private NotificationReplayBuffer replayBuffer;
+
+    @MockitoBean
+    private PresenceRegistry presenceRegistry;
+
+    /** Destination and sequence number of every push, in send order */
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        when(presenceRegistry.isOnline(anyString())).thenReturn(true);
+        doAnswer(invocation -> {
+            sent.add(invocation.getArgument(0) + "#" + seq(invocation.getArgument(1)));
+            return null;
+        }).when(messagingTemplate).send(anyString(), any(Message.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void enqueue_SendsOnlyAfterCommit() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            dispatcher.enqueue("alice", "n1", push(0));
+            sleep(100);
+            assertTrue(sent.isEmpty());
+        });
+
+        await(() -> sent.size() == 1);
+        assertEquals("/user/alice/notifications#0", sent.get(0));
+        await(() -> outboxRepository.count() == 0);
+    }
+
+    @Test
+    void drain_SendsThePayloadAsEncodedJson() throws Exception {
+        List<Message<?>> messages = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> messages.add(invocation.getArgument(1)))
+                .when(messagingTemplate).send(anyString(), any(Message.class));
+
+        dispatcher.enqueue("alice", null, new NotificationPayload.NotificationsRead(
+                "alice", 2, List.of("n1", "n2"), null, 1000L));
+
+        await(() -> messages.size() == 1);
+        Message<?> message = messages.get(0);
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        JsonNode json = objectMapper.readTree((byte[]) message.getPayload());
+        assertEquals("NOTIFICATIONS_READ", json.get("type").asText());
+        assertEquals("alice", json.get("userId").asText());
+        assertEquals(2, json.get("count").asInt());
+        assertEquals("n2", json.get("notificationIds").get(1).asText());
+        assertEquals(1000L, json.get("timestamp").asLong());
+    }
+
+    @Test
+    void drain_KeepsPushesOfStoredNotificationsForReplay() {
+        List<Message<?>> messages = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> messages.add(invocation.getArgument(1)))
+                .when(messagingTemplate).send(anyString(), any(Message.class));
+
+        dispatcher.enqueue("alice", "n1", new NotificationPayload.TaskAssigned(
+                "Task 'Report' assigned by bob", "alice", "task1", "Report", "bob", null, null, 1000L, "n1", 7L, false));
+        dispatcher.enqueue("alice", null, push(1));
+
+        await(() -> messages.size() == 2);
+        verify(replayBuffer, timeout(1000)).delivered(eq("alice"), eq(7L), contains("\"seq\":7"));
+        verify(replayBuffer, times(1)).delivered(anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    void drain_SkipsTheWebSocketPushForOfflineUsers() {
+        when(presenceRegistry.isOnline("bob")).thenReturn(false);
+        double offlineBefore = meterRegistry.counter(
+                "taskmaster.notifications.delivery.local", "result", "offline").count();
+
+        dispatcher.enqueue("bob", null, push(0));
+        dispatcher.enqueue("alice", null, push(1));
+
+        await(() -> sent.size() == 1 && outboxRepository.count() == 0);
+        assertEquals("/user/alice/notifications#1", sent.get(0));
+        // the stream is fed regardless; it knows its own subscribers
+        verify(notificationStream, timeout(1000)).publish(eq("bob"), isNull(), anyString());
+        assertEquals(1, meterRegistry.counter(
+                "taskmaster.notifications.delivery.local", "result", "offline").count() - offlineBefore);
+    }
+
+    @Test
+    void enqueue_RolledBackPushIsNeverSent() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            dispatcher.enqueue("alice", "n1", push(0));
+            status.setRollbackOnly();
+        });
+
+        dispatcher.poll();
+        sleep(200);
+        assertTrue(sent.isEmpty());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void drain_DeliversEachUsersPushesInOrder() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int seq = 0; seq < 10; seq++) {
+                for (String user : List.of("alice", "bob", "carol")) {
+                    dispatcher.enqueue(user, user + seq, push(seq));
+                }
+            }
+        });
+
+        await(() -> sent.size() == 30);
+        for (String user : List.of("alice", "bob", "carol")) {
+            List<String> received;
+            synchronized (sent) {
+                received = sent.stream().filter(push -> push.startsWith("/user/" + user + "/")).toList();
+            }
+            for (int seq = 0; seq < 10; seq++) {
+                assertEquals("/user/" + user + "/notifications#" + seq, received.get(seq));
+            }
+        }
+        await(() -> outboxRepository.count() == 0);
+    }
+
+    @Test
+    void drain_RetriesFailedPushBeforeLaterOnes() {
+        AtomicInteger aliceCalls = new AtomicInteger();
+        doAnswer(invocation -> {
+            String destination = invocation.getArgument(0);
+            if (destination.contains("alice") && aliceCalls.getAndIncrement() == 0) {
+                throw new IllegalStateException("broker unavailable");
+            }
+            sent.add(destination + "#" + seq(invocation.getArgument(1)));
+            return null;
+        }).when(messagingTemplate).send(anyString(), any(Message.class));
+
+        double retriedBefore = retried().count();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            dispatcher.enqueue("alice", "a0", push(0));
+            dispatcher.enqueue("alice", "a1", push(1));
+            dispatcher.enqueue("bob", "b0", push(0));
+        });
+
+        await(() -> {
+            dispatcher.poll();
+            return sent.size() == 3;
+        });
+        List<String> alice = sent.stream().filter(push -> push.contains("alice")).toList();
+        assertEquals(List.of("/user/alice/notifications#0", "/user/alice/notifications#1"), alice);
+        assertEquals(1, retried().count() - retriedBefore);
+        await(() -> outboxRepository.count() == 0);
+    }
+
+    @Test
+    void drain_WaitsWhileAnotherInstanceHoldsTheOutbox() throws Exception {
+        if (!lockRepository.existsById(NotificationOutboxLock.ID)) {
+            lockRepository.save(new NotificationOutboxLock(NotificationOutboxLock.ID));
+        }
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread otherInstance = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            lockRepository.lock(NotificationOutboxLock.ID);
+            locked.countDown();
+            sleep(300);
+        }));
+        otherInstance.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        dispatcher.enqueue("alice", null, push(0));
+        sleep(150);
+        assertTrue(sent.isEmpty());
+
+        otherInstance.join();
+        await(() -> sent.size() == 1);
+        assertEquals("/user/alice/notifications#0", sent.get(0));
+    }
+
+    @Test
+    void drain_PublishesWithoutHoldingTheOutboxLock() {
+        if (!lockRepository.existsById(NotificationOutboxLock.ID)) {
+            lockRepository.save(new NotificationOutboxLock(NotificationOutboxLock.ID));
+        }
+        List<Integer> dueWhileSending = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            // another instance draining while this push is on its way
+            dueWhileSending.add(CompletableFuture.supplyAsync(() -> new TransactionTemplate(transactionManager).execute(status -> {
+                lockRepository.lock(NotificationOutboxLock.ID);
+                return outboxRepository.findDue(3, Instant.now(), PageRequest.of(0, 5)).size();
+            })).get(5, TimeUnit.SECONDS));
+            sent.add(invocation.getArgument(0) + "#" + seq(invocation.getArgument(1)));
+            return null;
+        }).when(messagingTemplate).send(anyString(), any(Message.class));
+
+        dispatcher.enqueue("alice", null, push(0));
+
+        await(() -> sent.size() == 1);
+        // it got the lock, and found the claimed push not due
+        assertEquals(List.of(0), dueWhileSending);
+        await(() -> outboxRepository.count() == 0);
+    }
+
+    @Test
+    void drain_PushWrittenAfterAFailureWaitsForTheRetry() {
+        AtomicInteger aliceCalls = new AtomicInteger();
+        doAnswer(invocation -> {
+            String destination = invocation.getArgument(0);
+            if (destination.contains("alice") && aliceCalls.getAndIncrement() == 0) {
+                // queued while the failing push is still being attempted, due right away
+                dispatcher.enqueue("alice", "a1", push(1));
+                throw new IllegalStateException("broker unavailable");
+            }
+            sent.add(destination + "#" + seq(invocation.getArgument(1)));
+            return null;
+        }).when(messagingTemplate).send(anyString(), any(Message.class));
+
+        dispatcher.enqueue("alice", "a0", push(0));
+
+        await(() -> {
+            dispatcher.poll();
+            return sent.size() == 2;
+        });
+        assertEquals(List.of("/user/alice/notifications#0", "/user/alice/notifications#1"), List.copyOf(sent));
+        await(() -> outboxRepository.count() == 0);
+    }
+
+    @Test
+    void drain_GivesUpAfterMaxAttempts() {
+        doThrow(new IllegalStateException("broker unavailable"))
+                .when(messagingTemplate).send(anyString(), any(Message.class));
+        double abandonedBefore = abandoned().count();
+
+        dispatcher.enqueue("alice", "n1", push(0));
+
+        await(() -> {
+            dispatcher.poll();
+            return outboxRepository.findAll().stream().allMatch(row -> row.getAttempts() == 3);
+        });
+        sleep(100);
+        dispatcher.poll();
+        sleep(100);
+
+        NotificationOutbox row = outboxRepository.findAll().get(0);
+        assertEquals(3, row.getAttempts());
+        assertTrue(row.getLastError().contains("broker unavailable"));
+        assertEquals(1, abandoned().count() - abandonedBefore);
+    }
+
+    /** A push whose count stands in for a sequence number */
+    private static NotificationPayload push(int seq) {
+        return new NotificationPayload.NotificationsRead("user", seq, null, null, 0L);
+    }
+
+    private int seq(Message<?> message) throws Exception {
+        return objectMapper.readTree((byte[]) message.getPayload()).get("count").asInt();
+    }
+
+    private Counter retried() {
+        return meterRegistry.counter("taskmaster.notifications.outbox.deliveries", "result", "retried");
+    }
+
+    private Counter abandoned() {
+        return meterRegistry.counter("taskmaster.notifications.outbox.deliveries", "result", "abandoned");
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the dispatcher");
+            sleep(20);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
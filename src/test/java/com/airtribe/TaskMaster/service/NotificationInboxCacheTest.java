@@ -0,0 +1,258 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPush;
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.entity.NotificationType;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "taskmaster.notifications.inbox.max-users=2",
+        "taskmaster.notifications.inbox.recent=5",
+        "taskmaster.notifications.writer.flush-interval=1h"
+})
+@ActiveProfiles("test")
+@Import({NotificationInboxCache.class, NotificationWriter.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationInboxCacheTest {
+
+    private static final Instant BASE = Instant.parse("2025-07-01T00:00:00Z");
+
+    @Autowired
+    private NotificationInboxCache cache;
+
+    @Autowired
+    private NotificationWriter writer;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @BeforeEach
+    void setUp() {
+        cache.clear();
+        // n0 is the oldest; n0, n3 and n6 are read
+        for (int i = 0; i < 8; i++) {
+            insert("n" + i, "alice", BASE.plus(i, ChronoUnit.MINUTES), i % 3 == 0);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        writer.flush();
+        notificationRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void unreadCount_LoadedOnceThenServedFromMemory() {
+        double missesBefore = requests("miss");
+        double hitsBefore = requests("hit");
+
+        assertEquals(5, cache.unreadCount("alice"));
+        // changed behind the cache's back, so a second query would see it
+        jdbcTemplate.update("UPDATE notification SET is_read = TRUE");
+        assertEquals(5, cache.unreadCount("alice"));
+
+        assertEquals(1, requests("miss") - missesBefore);
+        assertEquals(1, requests("hit") - hitsBefore);
+    }
+
+    @Test
+    void remotePush_ReloadsTheEntryNowAndOnceTheOtherInstanceWroteIt() {
+        assertEquals(5, cache.unreadCount("alice"));
+        // marked read on another instance
+        jdbcTemplate.update("UPDATE notification SET is_read = TRUE WHERE id = 'n1'");
+
+        cache.onRemotePush(new LocalNotificationDelivery.RemotePush(new NotificationPush(
+                "other-instance", "alice", null, null, "/user/alice/notifications", "{}")));
+        assertEquals(4, cache.unreadCount("alice"));
+
+        // a notification the other instance stores after the push arrived
+        insert("n8", "alice", BASE.plus(8, ChronoUnit.MINUTES), false);
+        assertEquals(4, cache.unreadCount("alice"));
+        ArgumentCaptor<Runnable> laterEviction = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(laterEviction.capture(), any(Instant.class));
+        laterEviction.getValue().run();
+        assertEquals(5, cache.unreadCount("alice"));
+    }
+
+    @Test
+    void firstPage_ServedOnlyWhenTheHeadIsHeld() {
+        // 5 of alice's 8 notifications are held
+        assertEquals(List.of("n7", "n6", "n5", "n4"), ids(cache.firstPage("alice", false, 3).orElseThrow()));
+        assertTrue(cache.firstPage("alice", false, 5).isEmpty());
+        // n7, n5 and n4 are the only unread ones held, out of 5
+        assertEquals(List.of("n7", "n5"), ids(cache.firstPage("alice", true, 1).orElseThrow()));
+        assertTrue(cache.firstPage("alice", true, 3).isEmpty());
+
+        // bob has fewer notifications than are held, so any page can be answered
+        insert("b0", "bob", BASE, false);
+        assertEquals(List.of("b0"), ids(cache.firstPage("bob", false, 20).orElseThrow()));
+        assertEquals(List.of("b0"), ids(cache.firstPage("bob", true, 20).orElseThrow()));
+    }
+
+    @Test
+    void addedAndMarkedRead_KeepTheEntryCurrent() {
+        assertEquals(5, cache.unreadCount("alice"));
+
+        cache.added(notification("n8", "alice", BASE.plus(8, ChronoUnit.MINUTES)));
+        cache.markedRead("alice", List.of("n7", "n6"));
+
+        assertEquals(5, cache.unreadCount("alice"));
+        List<Notification> head = cache.firstPage("alice", false, 4).orElseThrow();
+        assertEquals(List.of("n8", "n7", "n6", "n5", "n4"), ids(head));
+        assertTrue(head.get(1).isRead());
+        assertEquals(List.of("n8", "n5", "n4"), ids(cache.firstPage("alice", true, 2).orElseThrow()));
+    }
+
+    @Test
+    void addedAndMarkedRead_AppliedOnlyAfterCommit() {
+        assertEquals(5, cache.unreadCount("alice"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.added(notification("n8", "alice", BASE.plus(8, ChronoUnit.MINUTES)));
+        assertEquals(5, cache.unreadCount("alice"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals(5, cache.unreadCount("alice"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.markedRead("alice", List.of("n7"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals(4, cache.unreadCount("alice"));
+    }
+
+    @Test
+    void load_CountsRowsStillQueuedInTheWriter() {
+        writer.write(notification(null, "alice", null));
+        assertEquals(1, writer.queued());
+
+        assertEquals(6, cache.unreadCount("alice"));
+        assertEquals(0, writer.queued());
+    }
+
+    @Test
+    void changeOfAnOlderNotification_ReloadsTheEntry() {
+        assertEquals(5, cache.unreadCount("alice"));
+
+        // n1 is unread but too old to be held, so the entry cannot tell whether to count it
+        jdbcTemplate.update("UPDATE notification SET is_read = TRUE WHERE id = 'n1'");
+        cache.markedRead("alice", List.of("n1"));
+
+        assertEquals(0, cache.size());
+        assertEquals(4, cache.unreadCount("alice"));
+    }
+
+    @Test
+    void markedReadUpTo_AppliedInMemoryWhileTheRangeIsHeld() {
+        assertEquals(5, cache.unreadCount("alice"));
+
+        // n7 down to n5: n7 and n5 were unread
+        cache.markedReadUpTo("alice", BASE.plus(5, ChronoUnit.MINUTES), "n5");
+        assertEquals(3, cache.unreadCount("alice"));
+        List<Notification> head = cache.firstPage("alice", false, 3).orElseThrow();
+        assertEquals(List.of(true, true, true, false), head.stream().map(Notification::isRead).toList());
+
+        cache.markedReadUpTo("alice", null, null);
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.unreadCount("alice"));
+    }
+
+    @Test
+    void markedReadUpTo_PastTheHeldRangeReloadsTheEntry() {
+        assertEquals(5, cache.unreadCount("alice"));
+
+        jdbcTemplate.update("UPDATE notification SET is_read = TRUE WHERE id IN ('n1', 'n2', 'n4', 'n5', 'n7')");
+        cache.markedReadUpTo("alice", BASE.plus(1, ChronoUnit.MINUTES), "n1");
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.unreadCount("alice"));
+    }
+
+    @Test
+    void leastRecentlyUsedUserIsEvicted() {
+        insert("b0", "bob", BASE, false);
+        insert("c0", "carol", BASE, false);
+        cache.unreadCount("alice");
+        cache.unreadCount("bob");
+        cache.unreadCount("alice");
+        double evictionsBefore = meterRegistry.counter("taskmaster.notifications.inbox.evictions").count();
+
+        cache.unreadCount("carol");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, meterRegistry.counter("taskmaster.notifications.inbox.evictions").count() - evictionsBefore);
+        double missesBefore = requests("miss");
+        cache.unreadCount("alice");
+        cache.unreadCount("carol");
+        assertEquals(0, requests("miss") - missesBefore);
+        cache.unreadCount("bob");
+        assertEquals(1, requests("miss") - missesBefore);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.counter("taskmaster.notifications.inbox.requests", "result", result).count();
+    }
+
+    private static List<String> ids(List<Notification> notifications) {
+        return notifications.stream().map(Notification::getId).toList();
+    }
+
+    private static Notification notification(String id, String userId, Instant createdAt) {
+        return Notification.builder()
+                .id(id)
+                .userId(userId)
+                .message("Notification " + id)
+                .taskId("task1")
+                .type(NotificationType.TASK_UPDATED)
+                .isRead(false)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private void insert(String id, String userId, Instant createdAt, boolean read) {
+        jdbcTemplate.update(
+                "INSERT INTO notification (id, user_id, message, task_id, type, is_read, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                id, userId, "Notification " + id, "task1", NotificationType.TASK_UPDATED.name(), read,
+                OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,228 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.CursorPage;
+import com.airtribe.TaskMaster.dto.NotificationPayload;
+import com.airtribe.TaskMaster.dto.PageCursor;
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.entity.NotificationType;
+import com.airtribe.TaskMaster.entity.SortDirection;
+import com.airtribe.TaskMaster.exception.BadRequestException;
+import com.airtribe.TaskMaster.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(NotificationService.class)
+class NotificationInboxTest {
+
+    private static final Instant BASE = Instant.parse("2025-07-01T00:00:00Z");
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private NotificationDispatcher notificationDispatcher;
+
+    @MockitoBean
+    private NotificationWriter notificationWriter;
+
+    @MockitoBean
+    private NotificationCoalescer notificationCoalescer;
+
+    @MockitoBean
+    private NotificationDigest notificationDigest;
+
+    /** Answers nothing, so every page comes from the database */
+    @MockitoBean
+    private NotificationInboxCache notificationInboxCache;
+
+    /** IDs of alice's notifications, newest first */
+    private final List<String> newestFirst = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // every third notification is read; pairs share a timestamp to exercise the id tie-breaker
+        for (int i = 0; i < 25; i++) {
+            insert(String.format("n%02d", i), "alice", BASE.plus(i / 2, ChronoUnit.MINUTES), i % 3 == 0);
+        }
+        insert("other", "bob", BASE.plus(1, ChronoUnit.HOURS), false);
+        for (int minute = 12; minute >= 0; minute--) {
+            for (int i = minute * 2; i <= Math.min(minute * 2 + 1, 24); i++) {
+                newestFirst.add(String.format("n%02d", i));
+            }
+        }
+    }
+
+    @Test
+    void getUserNotifications_PagesNewestFirstWithoutGapsOrDuplicates() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Notification> page = notificationService.getUserNotifications("alice", null, cursor, 4);
+            assertTrue(page.getItems().size() <= 4);
+            page.getItems().forEach(notification -> seen.add(notification.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(7, pages);
+        assertEquals(newestFirst, seen);
+        assertEquals(25, new HashSet<>(seen).size());
+    }
+
+    @Test
+    void getUnreadNotifications_SkipsReadNotifications() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Notification> page = notificationService.getUnreadNotifications("alice", null, cursor, 5);
+            page.getItems().forEach(notification -> {
+                assertFalse(notification.isRead());
+                seen.add(notification.getId());
+            });
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<String> expected = newestFirst.stream()
+                .filter(id -> Integer.parseInt(id.substring(1)) % 3 != 0)
+                .toList();
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void getUserNotifications_SinceReturnsOnlyNewerNotifications() {
+        CursorPage<Notification> page = notificationService.getUserNotifications(
+                "alice", BASE.plus(10, ChronoUnit.MINUTES), null, 20);
+
+        Set<String> ids = new HashSet<>();
+        page.getItems().forEach(notification -> ids.add(notification.getId()));
+        assertEquals(Set.of("n22", "n23", "n24"), ids);
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getUserNotifications_RejectsCursorForAnotherOrdering() {
+        String cursor = new PageCursor("assignedAt", SortDirection.DESC, BASE.toString(), "n00").encode();
+
+        assertThrows(BadRequestException.class,
+                () -> notificationService.getUserNotifications("alice", null, cursor, 4));
+        assertThrows(BadRequestException.class,
+                () -> notificationService.getUnreadNotifications("alice", null, "not a cursor", 4));
+    }
+
+    @Test
+    void tamperedCursorValue_IsABadRequest() {
+        String cursor = new PageCursor("createdAt", SortDirection.DESC, "yesterday", "n00").encode();
+
+        assertThrows(BadRequestException.class,
+                () -> notificationService.getUserNotifications("alice", null, cursor, 4));
+        assertThrows(BadRequestException.class,
+                () -> notificationService.getUnreadNotifications("alice", null, cursor, 4));
+        assertThrows(BadRequestException.class, () -> notificationService.markAllAsRead("alice", cursor));
+        verify(notificationDispatcher, never()).enqueue(any(), any(), any());
+    }
+
+    @Test
+    void markAsRead_TwoStatementsForManyIdsAndPushesOnlyTheChangedOnes() {
+        List<String> ids = new ArrayList<>(newestFirst);
+        ids.add("other");
+        ids.add("missing");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // 9 of alice's 25 notifications were read already, "other" is bob's and "missing" does not exist
+        assertEquals(16, notificationService.markAsRead("alice", ids));
+
+        // lock the unread ones, then update them
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertTrue(notificationService.getUnreadNotifications("alice", null, null, 20).getItems().isEmpty());
+        assertEquals(1, notificationService.getUnreadNotifications("bob", null, null, 20).getItems().size());
+        Set<String> changed = new HashSet<>(newestFirst.stream()
+                .filter(id -> Integer.parseInt(id.substring(1)) % 3 != 0)
+                .toList());
+        verify(notificationInboxCache).markedRead(eq("alice"), argThat(marked -> new HashSet<>(marked).equals(changed)));
+        verify(notificationDispatcher).enqueue(eq("alice"), isNull(), argThat(message ->
+                message instanceof NotificationPayload.NotificationsRead read
+                        && read.count() == 16 && new HashSet<>(read.notificationIds()).equals(changed)));
+    }
+
+    @Test
+    void markAsRead_NothingUnreadIsNotPushed() {
+        assertEquals(0, notificationService.markAsRead("alice", List.of("n00", "other", "missing")));
+
+        verify(notificationDispatcher, never()).enqueue(any(), any(), any());
+    }
+
+    @Test
+    void markAllAsRead_UpToCursorMarksTheLoadedPages() {
+        CursorPage<Notification> first = notificationService.getUserNotifications("alice", null, null, 4);
+        CursorPage<Notification> second = notificationService.getUserNotifications("alice", null, first.getNextCursor(), 4);
+
+        notificationService.markAllAsRead("alice", second.getNextCursor());
+
+        List<String> stillUnread = new ArrayList<>();
+        notificationService.getUnreadNotifications("alice", null, null, 100).getItems()
+                .forEach(notification -> stillUnread.add(notification.getId()));
+        List<String> expected = newestFirst.subList(8, newestFirst.size()).stream()
+                .filter(id -> Integer.parseInt(id.substring(1)) % 3 != 0)
+                .toList();
+        assertEquals(expected, stillUnread);
+        Notification last = second.getItems().get(3);
+        verify(notificationInboxCache).markedReadUpTo("alice", last.getCreatedAt(), last.getId());
+    }
+
+    @Test
+    void markAllAsRead_PushesOnlyWhenSomethingChanged() {
+        assertEquals(16, notificationService.markAllAsRead("alice", null));
+        assertEquals(0, notificationService.markAllAsRead("alice", null));
+
+        verify(notificationInboxCache).markedReadUpTo("alice", null, null);
+        verify(notificationDispatcher).enqueue(eq("alice"), isNull(), any());
+        assertEquals(1, notificationService.getUnreadNotifications("bob", null, null, 20).getItems().size());
+    }
+
+    private void insert(String id, String userId, Instant createdAt, boolean read) {
+        // bypass @PrePersist so each row gets the timestamp the test needs
+        jdbcTemplate.update(
+                "INSERT INTO notification (id, user_id, message, task_id, type, is_read, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                id, userId, "Notification " + id, "task1", NotificationType.TASK_UPDATED.name(), read,
+                OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,141 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.NotificationType;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "taskmaster.notifications.retention.read-after=30d",
+        "taskmaster.notifications.retention.after=180d",
+        "taskmaster.notifications.retention.chunk-size=3"
+})
+@ActiveProfiles("test")
+@Import({NotificationPurger.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationPurgerTest {
+
+    @Autowired
+    private NotificationPurger purger;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private NotificationInboxCache notificationInboxCache;
+
+    @MockitoBean
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @BeforeEach
+    void setUp() {
+        Instant now = Instant.now();
+        // read and past read retention, oldest first
+        for (int i = 0; i < 4; i++) {
+            insert("read-old-" + i, "alice", now.minus(40 + 10 - i, ChronoUnit.DAYS), true);
+        }
+        insert("read-recent", "alice", now.minus(10, ChronoUnit.DAYS), true);
+        insert("unread-old", "alice", now.minus(40, ChronoUnit.DAYS), false);
+        insert("unread-expired-0", "bob", now.minus(200, ChronoUnit.DAYS), false);
+        insert("unread-expired-1", "bob", now.minus(190, ChronoUnit.DAYS), false);
+        insert("unread-new", "bob", now, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void purgeChunk_DeletesOnlyWhatIsPastRetention() {
+        double readBefore = purged("read").count();
+        double unreadBefore = purged("unread").count();
+
+        int chunks = 0;
+        while (purger.purgeChunk() > 0) {
+            chunks++;
+        }
+
+        // 2 expired unread rows in one chunk, then 4 old read rows in chunks of 3
+        assertEquals(3, chunks);
+        assertEquals(Set.of("read-recent", "unread-old", "unread-new"), remaining());
+        assertEquals(4, purged("read").count() - readBefore);
+        assertEquals(2, purged("unread").count() - unreadBefore);
+        verify(notificationInboxCache, atLeastOnce()).evict("alice");
+        verify(notificationInboxCache, atLeastOnce()).evict("bob");
+    }
+
+    @Test
+    void purgeChunk_DeletesOldestFirst() {
+        assertEquals(2, purger.purgeChunk());
+        assertEquals(3, purger.purgeChunk());
+
+        assertEquals(Set.of("read-old-3", "read-recent", "unread-old", "unread-new"), remaining());
+    }
+
+    @Test
+    void start_ChainsChunksUntilNothingIsLeftAndReportsLag() {
+        ArgumentCaptor<Runnable> next = ArgumentCaptor.forClass(Runnable.class);
+
+        purger.start();
+        // the most overdue row is the unread one from 200 days ago, 20 days past retention
+        assertTrue(purger.lag().compareTo(Duration.ofDays(19)) > 0, "lag " + purger.lag());
+        // a pass already running is not started twice
+        purger.start();
+
+        for (int steps = 1; steps <= 3; steps++) {
+            verify(taskScheduler, times(steps)).schedule(next.capture(), any(Instant.class));
+            next.getValue().run();
+        }
+        verify(taskScheduler, times(3)).schedule(any(Runnable.class), any(Instant.class));
+        assertEquals(Set.of("read-recent", "unread-old", "unread-new"), remaining());
+        assertEquals(Duration.ZERO, purger.lag());
+    }
+
+    private Counter purged(String state) {
+        return meterRegistry.counter("taskmaster.notifications.retention.purged", "state", state);
+    }
+
+    private Set<String> remaining() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM notification", String.class));
+    }
+
+    private void insert(String id, String userId, Instant createdAt, boolean read) {
+        jdbcTemplate.update(
+                "INSERT INTO notification (id, user_id, message, task_id, type, is_read, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                id, userId, "Notification " + id, "task1", NotificationType.TASK_UPDATED.name(), read,
+                OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC));
+    }
+}
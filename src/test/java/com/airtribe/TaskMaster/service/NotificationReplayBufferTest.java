@@ -0,0 +1,158 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationReplay;
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.entity.NotificationType;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "taskmaster.notifications.replay.size=3",
+        "taskmaster.notifications.writer.flush-interval=1h"
+})
+@ActiveProfiles("test")
+@Import({NotificationReplayBuffer.class, NotificationWriter.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationReplayBufferTest {
+
+    private static final Instant BASE = Instant.parse("2025-07-01T00:00:00Z");
+
+    @Autowired
+    private NotificationReplayBuffer replayBuffer;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @BeforeEach
+    void setUp() {
+        replayBuffer.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void replay_AnswersFromTheBufferWhileItReachesBackFarEnough() {
+        for (long seq = 1; seq <= 5; seq++) {
+            replayBuffer.delivered("alice", seq, push(seq));
+        }
+
+        NotificationReplay replay = replayBuffer.replay("alice", 2);
+        assertEquals("[" + push(3) + "," + push(4) + "," + push(5) + "]", replay.getPushes());
+        assertTrue(replay.getMissed().isEmpty());
+        assertFalse(replay.isResync());
+
+        assertEquals("[" + push(5) + "]", replayBuffer.replay("alice", 4).getPushes());
+        assertEquals("[]", replayBuffer.replay("alice", 5).getPushes());
+    }
+
+    @Test
+    void replay_ReadsTheDatabaseForWhatTheBufferNeverSaw() {
+        for (long seq = 1; seq <= 5; seq++) {
+            insert("n" + seq, "alice", seq);
+        }
+        // pushes 1 to 3 were delivered before this instance started
+        replayBuffer.delivered("alice", 4, push(4));
+        replayBuffer.delivered("alice", 5, push(5));
+
+        NotificationReplay replay = replayBuffer.replay("alice", 2);
+        assertEquals("[]", replay.getPushes());
+        assertEquals(List.of("n3", "n4", "n5"), ids(replay.getMissed()));
+        assertFalse(replay.isResync());
+        assertEquals("[" + push(5) + "]", replayBuffer.replay("alice", 4).getPushes());
+    }
+
+    @Test
+    void replay_AnswersInSequenceOrderWhateverOrderPushesArrivedIn() {
+        for (long seq : new long[]{1, 2, 4, 3, 3}) {
+            replayBuffer.delivered("alice", seq, push(seq));
+        }
+
+        NotificationReplay replay = replayBuffer.replay("alice", 1);
+        assertEquals("[" + push(2) + "," + push(3) + "," + push(4) + "]", replay.getPushes());
+        assertTrue(replay.getMissed().isEmpty());
+    }
+
+    @Test
+    void replay_ReadsTheDatabaseWhenAPushInBetweenWasNotDelivered() {
+        for (long seq = 1; seq <= 4; seq++) {
+            insert("n" + seq, "alice", seq);
+        }
+        // the push of 3 is still being retried
+        replayBuffer.delivered("alice", 1, push(1));
+        replayBuffer.delivered("alice", 2, push(2));
+        replayBuffer.delivered("alice", 4, push(4));
+
+        NotificationReplay replay = replayBuffer.replay("alice", 2);
+        assertEquals("[]", replay.getPushes());
+        assertEquals(List.of("n3", "n4"), ids(replay.getMissed()));
+    }
+
+    @Test
+    void replay_ReadsTheDatabaseForUsersWithoutABuffer() {
+        for (long seq = 1; seq <= 3; seq++) {
+            insert("n" + seq, "alice", seq);
+        }
+        insert("b1", "bob", 1);
+
+        NotificationReplay replay = replayBuffer.replay("alice", 1);
+        assertEquals(List.of("n2", "n3"), ids(replay.getMissed()));
+        assertFalse(replay.isResync());
+        assertTrue(replayBuffer.replay("alice", 3).getMissed().isEmpty());
+    }
+
+    @Test
+    void replay_AsksForResyncWhenMoreWereMissedThanItHolds() {
+        for (long seq = 1; seq <= 5; seq++) {
+            insert("n" + seq, "alice", seq);
+        }
+
+        NotificationReplay replay = replayBuffer.replay("alice", 0);
+        assertTrue(replay.isResync());
+        assertEquals("[]", replay.getPushes());
+        assertTrue(replay.getMissed().isEmpty());
+    }
+
+    private static List<String> ids(List<Notification> notifications) {
+        return notifications.stream().map(Notification::getId).toList();
+    }
+
+    private static String push(long seq) {
+        return "{\"type\":\"TASK_UPDATED\",\"seq\":" + seq + "}";
+    }
+
+    private void insert(String id, String userId, long seq) {
+        jdbcTemplate.update(
+                "INSERT INTO notification (id, user_id, message, task_id, type, is_read, created_at, seq) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                id, userId, "Notification " + id, "task1", NotificationType.TASK_UPDATED.name(), false,
+                OffsetDateTime.ofInstant(BASE.plus(seq, ChronoUnit.MINUTES), ZoneOffset.UTC), seq);
+    }
+}
@@ -1,24 +1,29 @@
 package com.airtribe.TaskMaster.service;
 
+import com.airtribe.TaskMaster.dto.CursorPage;
+import com.airtribe.TaskMaster.dto.NotificationPayload;
 import com.airtribe.TaskMaster.entity.*;
 import com.airtribe.TaskMaster.repository.NotificationRepository;
 import com.airtribe.TaskMaster.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.function.IntConsumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -32,7 +37,22 @@ class NotificationServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private SimpMessagingTemplate messagingTemplate;
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private NotificationWriter notificationWriter;
+
+    @Mock
+    private NotificationCoalescer notificationCoalescer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private NotificationDigest notificationDigest;
+
+    @Mock
+    private NotificationInboxCache notificationInboxCache;
 
     @InjectMocks
     private NotificationService notificationService;
@@ -55,26 +75,58 @@ class NotificationServiceTest {
                 .type(NotificationType.TASK_ASSIGNED)
                 .message("Test notification")
                 .isRead(false)
+                .createdAt(Instant.now())
                 .build();
 
 
     }
 
+    @Test
+    void notifyTasksAssigned_SendsOneAggregatedNotification() {
+        Task other = Task.builder().id("task456").title("Other Task").build();
+        when(notificationWriter.write(any(Notification.class))).thenAnswer(invocation -> {
+            Notification saved = invocation.getArgument(0);
+            saved.setId("notif456");
+            saved.setCreatedAt(Instant.now());
+            return saved;
+        });
+
+        notificationService.notifyTasksAssigned(userId, List.of(task, other), "assigner123");
+
+        verify(notificationWriter, times(1)).write(argThat(saved ->
+                saved.getTaskId() == null && saved.getMessage().startsWith("2 tasks assigned by assigner123")));
+        verify(notificationDispatcher, times(1)).enqueue(
+            eq(userId),
+            eq("notif456"),
+            argThat(message -> message instanceof NotificationPayload.TasksAssigned assigned
+                    && assigned.taskIds().equals(List.of("task123", "task456")))
+        );
+    }
+
     @Test
     void notifyTaskAssignment_Success() {
         when(userRepository.existsById(userId)).thenReturn(true);
-        when(notificationRepository.save(any(Notification.class))).thenReturn(notification);
+        when(notificationWriter.write(any(Notification.class))).thenReturn(notification);
 
         TaskAssignment assignment = new TaskAssignment();
         assignment.setAssignedBy("assigner123");
         notificationService.notifyTaskAssignment(userId, task, assignment);
 
-        verify(notificationRepository).save(any(Notification.class));
-        verify(messagingTemplate).convertAndSendToUser(
-            eq(userId),
-            eq("/notifications"),
-            any(Map.class)
-        );
+        verify(notificationWriter).write(any(Notification.class));
+        verify(notificationDispatcher).enqueue(eq(userId), eq(notification.getId()), any(NotificationPayload.TaskAssigned.class));
+    }
+
+    @Test
+    void notifyTaskAssignment_DigestUserIsNotNotifiedDirectly() {
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(notificationDigest.absorb(userId, NotificationType.TASK_ASSIGNED, List.of(task.getId()))).thenReturn(true);
+
+        TaskAssignment assignment = new TaskAssignment();
+        assignment.setAssignedBy("assigner123");
+        notificationService.notifyTaskAssignment(userId, task, assignment);
+
+        verify(notificationWriter, never()).write(any(Notification.class));
+        verify(notificationDispatcher, never()).enqueue(any(), any(), any());
     }
 
     @Test
@@ -83,22 +135,22 @@ class NotificationServiceTest {
 
         notificationService.notifyTaskAssignment(userId, task, new TaskAssignment());
 
-        verify(notificationRepository, never()).save(any(Notification.class));
-        verify(messagingTemplate, never()).convertAndSendToUser(any(), any(), any());
+        verify(notificationWriter, never()).write(any(Notification.class));
+        verify(notificationDispatcher, never()).enqueue(any(), any(), any());
     }
 
     @Test
     void getUnreadNotifications_Success() {
         List<Notification> notifications = Arrays.asList(notification);
-        when(notificationRepository.findByUserIdAndIsReadOrderByCreatedAtDesc(userId, false))
+        when(notificationRepository.findPageByUserIdAndIsRead(eq(userId), eq(false), eq(Instant.EPOCH), any(), eq(""), any()))
                 .thenReturn(notifications);
 
-        List<Notification> result = notificationService.getUnreadNotifications(userId);
+        CursorPage<Notification> result = notificationService.getUnreadNotifications(userId, null, null, 20);
 
         assertNotNull(result);
-        assertFalse(result.isEmpty());
-        assertEquals(notifications.size(), result.size());
-        assertEquals(notifications.get(0).getId(), result.get(0).getId());
+        assertEquals(notifications.size(), result.getItems().size());
+        assertEquals(notifications.get(0).getId(), result.getItems().get(0).getId());
+        assertNull(result.getNextCursor());
     }
 
     @Test
@@ -110,13 +162,32 @@ class NotificationServiceTest {
 
         notificationService.markAsRead(notification.getId());
 
+        // the row may still be queued in the writer
+        // flushed before the transaction starts, so the request holds one connection at a time
+        InOrder inOrder = inOrder(notificationWriter, transactionManager, notificationRepository);
+        inOrder.verify(notificationWriter).flush();
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(notificationRepository).findById(notification.getId());
         verify(notificationRepository).save(argThat(n -> n.isRead()));
+        verify(notificationInboxCache).markedRead(userId, List.of(notification.getId()));
+    }
+
+    @Test
+    void markAsRead_AlreadyReadIsNotCountedAgain() {
+        notification.setRead(true);
+        when(notificationRepository.findById(notification.getId()))
+                .thenReturn(Optional.of(notification));
+
+        notificationService.markAsRead(notification.getId());
+
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verifyNoInteractions(notificationInboxCache);
     }
 
     @Test
     void notifyTaskCompletion_Success() {
         when(userRepository.existsById(userId)).thenReturn(true);
-        when(notificationRepository.save(any(Notification.class))).thenReturn(notification);
+        when(notificationWriter.write(any(Notification.class))).thenReturn(notification);
 
         TaskArchive archive = new TaskArchive();
         archive.setCompletedBy("completer123");
@@ -125,12 +196,8 @@ class NotificationServiceTest {
 
         notificationService.notifyTaskCompletion(userId, task, archive);
 
-        verify(notificationRepository).save(any(Notification.class));
-        verify(messagingTemplate).convertAndSendToUser(
-            eq(userId),
-            eq("/notifications"),
-            any(Map.class)
-        );
+        verify(notificationWriter).write(any(Notification.class));
+        verify(notificationDispatcher).enqueue(eq(userId), eq(notification.getId()), any(NotificationPayload.TaskCompleted.class));
     }
 
     @Test
@@ -139,13 +206,13 @@ class NotificationServiceTest {
 
         notificationService.notifyTaskCompletion(userId, task, new TaskArchive());
 
-        verify(notificationRepository, never()).save(any(Notification.class));
-        verify(messagingTemplate, never()).convertAndSendToUser(any(), any(), any());
+        verify(notificationWriter, never()).write(any(Notification.class));
+        verify(notificationDispatcher, never()).enqueue(any(), any(), any());
     }
 
     @Test
     void notifyTaskUpdate_Success() {
-        when(notificationRepository.save(any(Notification.class))).thenReturn(notification);
+        when(notificationWriter.write(any(Notification.class))).thenReturn(notification);
 
         TaskAssignment assignment = new TaskAssignment();
         assignment.setAssignedTo(userId);
@@ -154,11 +221,17 @@ class NotificationServiceTest {
 
         notificationService.notifyTaskUpdate(task, assignment);
 
-        verify(notificationRepository).save(any(Notification.class));
-        verify(messagingTemplate).convertAndSendToUser(
-            eq(userId),
-            eq("/notifications"),
-            any(Map.class)
-        );
+        ArgumentCaptor<IntConsumer> emitter = ArgumentCaptor.forClass(IntConsumer.class);
+        verify(notificationCoalescer).submit(eq(userId), eq(task.getId()), eq(NotificationType.TASK_UPDATED), emitter.capture());
+        verify(notificationWriter, never()).write(any(Notification.class));
+
+        // the coalescer closes the window after three updates
+        emitter.getValue().accept(3);
+
+        // the row and its push are committed together
+        verify(transactionManager).commit(any());
+        verify(notificationWriter).write(argThat(saved -> saved.getMessage().contains("updated 3 times")));
+        verify(notificationDispatcher).enqueue(eq(userId), eq(notification.getId()),
+            argThat(message -> message instanceof NotificationPayload.TaskUpdated updated && updated.changeCount() == 3));
     }
 }
@@ -0,0 +1,196 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.controller.NotificationController;
+import com.airtribe.TaskMaster.entity.NotificationType;
+import com.airtribe.TaskMaster.entity.User;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@DataJpaTest(properties = "taskmaster.notifications.writer.flush-interval=1h")
+@ActiveProfiles("test")
+@Import({NotificationWriter.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationStreamTest {
+
+    private static final Instant BASE = Instant.parse("2025-07-01T00:00:00Z");
+
+    private NotificationStream stream;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    /** Sender tasks, run when the test says so */
+    private final Queue<Runnable> sends = new ArrayDeque<>();
+
+    @Autowired
+    private NotificationWriter notificationWriter;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        stream = new NotificationStream(notificationRepository, notificationWriter, taskScheduler, meterRegistry,
+                Duration.ofSeconds(15), Duration.ofMinutes(30), 3, 2, senderPool());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new NotificationController(mock(NotificationService.class), stream))
+                .build();
+        for (int i = 0; i < 5; i++) {
+            insert("n" + i, "alice", BASE.plus(i, ChronoUnit.MINUTES));
+        }
+        insert("b0", "bob", BASE.plus(10, ChronoUnit.MINUTES));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+        notificationRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void publish_WritesToTheUsersOpenStreamsOnly() throws Exception {
+        MvcResult alice = open("alice", null);
+        MvcResult bob = open("bob", null);
+        assertEquals(2, stream.connections());
+
+        stream.publish("alice", "n5", "{\"type\":\"TASK_ASSIGNED\"}");
+        stream.publish("alice", null, "{\"type\":\"NOTIFICATIONS_READ\"}");
+        // written by the sender, not by the publishing thread
+        assertEquals("", content(alice));
+        runSends();
+
+        assertEquals("id:n5\nevent:notification\ndata:{\"type\":\"TASK_ASSIGNED\"}\n\n"
+                + "event:notification\ndata:{\"type\":\"NOTIFICATIONS_READ\"}\n\n", content(alice));
+        assertEquals("", content(bob));
+    }
+
+    @Test
+    void subscribe_ReplaysNotificationsMissedSinceLastEventId() throws Exception {
+        MvcResult alice = open("alice", "n1");
+
+        String content = content(alice);
+        List<String> ids = content.lines().filter(line -> line.startsWith("id:")).toList();
+        assertEquals(List.of("id:n2", "id:n3", "id:n4"), ids);
+        assertTrue(content.contains("event:missed\n"));
+        assertTrue(content.contains("\"message\":\"Notification n3\""));
+    }
+
+    @Test
+    void subscribe_AsksForResyncWhenTheGapCannotBeReplayed() throws Exception {
+        // four notifications after n0, more than the replay limit of 3
+        assertEquals("event:resync\ndata:\n\n", content(open("alice", "n0")));
+        assertEquals("event:resync\ndata:\n\n", content(open("alice", "no-such-notification")));
+        // another user's notification is not a position in alice's stream
+        assertEquals("event:resync\ndata:\n\n", content(open("alice", "b0")));
+        // nothing missed
+        assertEquals("", content(open("alice", "n4")));
+    }
+
+    @Test
+    void sendHeartbeats_WritesACommentToEveryStream() throws Exception {
+        MvcResult alice = open("alice", null);
+
+        stream.sendHeartbeats();
+        runSends();
+
+        assertEquals(":heartbeat\n\n", content(alice));
+    }
+
+    @Test
+    void publish_ClosesAStreamThatFallsTooFarBehind() throws Exception {
+        MvcResult alice = open("alice", null);
+        MvcResult bob = open("bob", null);
+
+        // alice's client stopped reading; her queue holds two events
+        for (int i = 0; i < 3; i++) {
+            stream.publish("alice", "n" + (10 + i), "{}");
+        }
+        stream.publish("bob", "b1", "{}");
+
+        assertEquals(1, stream.connections());
+        assertEquals(1, meterRegistry.counter("taskmaster.notifications.stream.dropped").count());
+        runSends();
+        stream.publish("alice", "n13", "{}");
+        runSends();
+        assertEquals("", content(alice));
+        assertEquals("id:b1\nevent:notification\ndata:{}\n\n", content(bob));
+    }
+
+    /** A sender pool whose tasks only run in {@link #runSends} */
+    private ExecutorService senderPool() {
+        ExecutorService pool = mock(ExecutorService.class);
+        doAnswer(invocation -> sends.add(invocation.getArgument(0))).when(pool).execute(any(Runnable.class));
+        return pool;
+    }
+
+    private void runSends() {
+        Runnable send;
+        while ((send = sends.poll()) != null) {
+            send.run();
+        }
+    }
+
+    private MvcResult open(String userId, String lastEventId) throws Exception {
+        User user = new User();
+        user.setId(userId);
+        MockHttpServletRequestBuilder request = get("/api/notifications/stream")
+                .principal(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private static String content(MvcResult result) throws Exception {
+        return result.getResponse().getContentAsString();
+    }
+
+    private void insert(String id, String userId, Instant createdAt) {
+        jdbcTemplate.update(
+                "INSERT INTO notification (id, user_id, message, task_id, type, is_read, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                id, userId, "Notification " + id, "task1", NotificationType.TASK_UPDATED.name(), false,
+                OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,194 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Notification;
+import com.airtribe.TaskMaster.entity.NotificationType;
+import com.airtribe.TaskMaster.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "taskmaster.notifications.writer.batch-size=10",
+        "taskmaster.notifications.writer.capacity=20",
+        "taskmaster.notifications.writer.flush-interval=50ms"
+})
+@ActiveProfiles("test")
+@Import({NotificationWriter.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationWriterTest {
+
+    @Autowired
+    private NotificationWriter writer;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        writer.flush();
+        notificationRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM notification_sequence");
+    }
+
+    @Test
+    void write_AssignsIdAndIsFlushedInTheBackground() {
+        Notification notification = writer.write(notification("alice", 0));
+
+        assertNotNull(notification.getId());
+        assertNotNull(notification.getCreatedAt());
+        await(() -> notificationRepository.count() == 1);
+        Notification stored = notificationRepository.findById(notification.getId()).orElseThrow();
+        assertEquals("alice", stored.getUserId());
+        assertEquals("task0", stored.getTaskId());
+        assertEquals(NotificationType.TASK_ASSIGNED, stored.getType());
+        assertFalse(stored.isRead());
+        assertEquals(notification.getCreatedAt(), stored.getCreatedAt());
+    }
+
+    @Test
+    void write_NumbersEachUsersNotificationsFromTheHighestStored() {
+        jdbcTemplate.update(
+                "INSERT INTO notification (id, user_id, message, type, is_read, created_at, seq) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                "old", "seq-alice", "Old", NotificationType.TASK_ASSIGNED.name(), true,
+                OffsetDateTime.now(ZoneOffset.UTC), 7);
+
+        assertEquals(8, writer.write(notification("seq-alice", 0)).getSeq());
+        assertEquals(9, writer.write(notification("seq-alice", 1)).getSeq());
+        assertEquals(1, writer.write(notification("seq-bob", 0)).getSeq());
+
+        writer.flush();
+        assertEquals(9, jdbcTemplate.queryForObject(
+                "SELECT MAX(seq) FROM notification WHERE user_id = 'seq-alice'", Long.class));
+    }
+
+    @Test
+    void write_RolledBackNotificationLeavesAGap() {
+        assertEquals(1, writer.write(notification("seq-alice", 0)).getSeq());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertEquals(2, writer.write(notification("seq-alice", 1)).getSeq());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(3, writer.write(notification("seq-alice", 2)).getSeq());
+    }
+
+    @Test
+    void write_DoesNotHoldTheSequenceRowUntilTheCallerCommits() {
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                assertEquals(1, writer.write(notification("seq-alice", 0)).getSeq());
+                // numbered while the first transaction is still open
+                Future<Long> next = other.submit(() -> new TransactionTemplate(transactionManager)
+                        .execute(inner -> writer.write(notification("seq-alice", 1)).getSeq()));
+                assertEquals(2, assertDoesNotThrow(() -> next.get(5, TimeUnit.SECONDS)));
+            });
+        } finally {
+            other.shutdownNow();
+        }
+    }
+
+    @Test
+    void write_RolledBackTransactionWritesNothing() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            writer.write(notification("alice", 0));
+            status.setRollbackOnly();
+        });
+
+        writer.flush();
+        assertEquals(0, writer.queued());
+        assertEquals(0, notificationRepository.count());
+    }
+
+    @Test
+    void flush_DropsOnlyTheRowTheDatabaseRejects() {
+        Notification tooLong = notification("alice", 1);
+        tooLong.setMessage("x".repeat(300));
+        writer.write(notification("alice", 0));
+        writer.write(tooLong);
+        writer.write(notification("alice", 2));
+
+        writer.flush();
+
+        assertEquals(0, writer.queued());
+        assertEquals(2, notificationRepository.count());
+        assertFalse(notificationRepository.existsById(tooLong.getId()));
+    }
+
+    @Test
+    void write_QueueNeverGrowsPastCapacity() {
+        int maxQueued = 0;
+        for (int i = 0; i < 500; i++) {
+            writer.write(notification("user" + (i % 7), i));
+            maxQueued = Math.max(maxQueued, writer.queued());
+        }
+
+        assertTrue(maxQueued <= 20, "queued " + maxQueued + " rows with a capacity of 20");
+        writer.flush();
+        assertEquals(500, notificationRepository.count());
+    }
+
+    @Test
+    void shutdown_WritesEverythingStillQueued() throws Exception {
+        NotificationWriter idle = new NotificationWriter(jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                1000, 10_000, Duration.ofHours(1));
+        for (int i = 0; i < 25; i++) {
+            idle.write(notification("alice", i));
+        }
+        assertEquals(25, idle.queued());
+
+        idle.shutdown();
+
+        assertEquals(0, idle.queued());
+        assertEquals(25, notificationRepository.count());
+    }
+
+    private static Notification notification(String userId, int seq) {
+        return Notification.builder()
+                .userId(userId)
+                .taskId("task" + seq)
+                .message("Task " + seq + " assigned")
+                .type(NotificationType.TASK_ASSIGNED)
+                .isRead(false)
+                .build();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the writer");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.airtribe.TaskMaster.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresenceRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PresenceRegistry presence;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        presence = new PresenceRegistry(meterRegistry);
+    }
+
+    @Test
+    void connected_CountsEachSessionOfAUserAsADevice() {
+        presence.connected("alice", "s1");
+        presence.connected("alice", "s2");
+        presence.connected("bob", "s3");
+
+        assertTrue(presence.isOnline("alice"));
+        assertEquals(2, presence.devices("alice"));
+        assertEquals(1, presence.devices("bob"));
+        assertEquals(0, presence.devices("carol"));
+        assertFalse(presence.isOnline("carol"));
+        assertEquals(2, gauge("taskmaster.notifications.presence.users"));
+        assertEquals(3, gauge("taskmaster.notifications.presence.sessions"));
+    }
+
+    @Test
+    void disconnected_UserGoesOfflineWithTheirLastSession() {
+        presence.connected("alice", "s1");
+        presence.connected("alice", "s2");
+
+        presence.disconnected("s1");
+        assertTrue(presence.isOnline("alice"));
+        assertEquals(1, presence.devices("alice"));
+
+        presence.disconnected("s2");
+        assertFalse(presence.isOnline("alice"));
+        assertEquals(0, gauge("taskmaster.notifications.presence.users"));
+    }
+
+    @Test
+    void disconnected_RepeatedOrUnknownSessionsAreIgnored() {
+        presence.connected("alice", "s1");
+        presence.connected("alice", "s1");
+        assertEquals(1, presence.devices("alice"));
+
+        // the client's DISCONNECT, then the one sent when the session closes
+        presence.disconnected("s1");
+        presence.disconnected("s1");
+        presence.disconnected("never-connected");
+
+        assertFalse(presence.isOnline("alice"));
+        assertEquals(1, meterRegistry.counter("taskmaster.notifications.presence.connects").count());
+        assertEquals(1, meterRegistry.counter("taskmaster.notifications.presence.disconnects").count());
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+}
@@ -0,0 +1,122 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.NotificationPush;
+import com.airtribe.TaskMaster.exception.NotificationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class RelayNotificationBusTest {
+
+    private NotificationRelayHub hub;
+    private final List<RelayNotificationBus> buses = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        hub = new NotificationRelayHub(0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        buses.forEach(RelayNotificationBus::shutdown);
+        hub.close();
+    }
+
+    @Test
+    void publish_DeliversOnEveryInstance() {
+        List<NotificationPush> onA = Collections.synchronizedList(new ArrayList<>());
+        List<NotificationPush> onB = Collections.synchronizedList(new ArrayList<>());
+        RelayNotificationBus nodeA = connect(recording(onA), hub.getPort());
+        connect(recording(onB), hub.getPort());
+        await(() -> hub.peers() == 2);
+
+        for (long seq = 1; seq <= 20; seq++) {
+            nodeA.publish(push(seq));
+        }
+
+        await(() -> onA.size() == 20 && onB.size() == 20);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(push(i + 1), onA.get(i));
+            assertEquals(push(i + 1), onB.get(i));
+        }
+    }
+
+    @Test
+    void publish_OnlyOtherInstancesSeeThePushAsRemote() {
+        LocalNotificationDelivery onA = mock(LocalNotificationDelivery.class);
+        LocalNotificationDelivery onB = mock(LocalNotificationDelivery.class);
+        RelayNotificationBus nodeA = connect(onA, hub.getPort());
+        connect(onB, hub.getPort());
+        await(() -> hub.peers() == 2);
+
+        nodeA.publish(push(1));
+
+        verify(onA, timeout(10_000)).deliver(argThat(push -> push.seq() == 1), eq(false));
+        verify(onB, timeout(10_000)).deliver(argThat(push -> push.seq() == 1), eq(true));
+    }
+
+    @Test
+    void publish_FailsWhileTheHubIsUnreachable() throws Exception {
+        LocalNotificationDelivery localDelivery = mock(LocalNotificationDelivery.class);
+        RelayNotificationBus bus = connect(localDelivery, hub.getPort());
+        // connecting clears what may have gaps
+        verify(localDelivery, atLeastOnce()).reset();
+
+        hub.close();
+        await(() -> !bus.isConnected());
+
+        assertThrows(NotificationException.class, () -> bus.publish(push(1)));
+    }
+
+    private RelayNotificationBus connect(LocalNotificationDelivery localDelivery, int port) {
+        RelayNotificationBus bus = new RelayNotificationBus(localDelivery, new ObjectMapper(),
+                new SimpleMeterRegistry(), "localhost", port, Duration.ofMillis(50));
+        buses.add(bus);
+        bus.onApplicationReady();
+        await(bus::isConnected);
+        return bus;
+    }
+
+    private static LocalNotificationDelivery recording(List<NotificationPush> delivered) {
+        LocalNotificationDelivery localDelivery = mock(LocalNotificationDelivery.class);
+        doAnswer(invocation -> delivered.add(invocation.<NotificationPush>getArgument(0).withOrigin(null)))
+                .when(localDelivery).deliver(any(), anyBoolean());
+        return localDelivery;
+    }
+
+    private static NotificationPush push(long seq) {
+        return new NotificationPush(null, "alice", "n" + seq, seq, "/user/alice/notifications",
+                "{\"type\":\"TASK_UPDATED\",\"message\":\"line\\nbreak\",\"seq\":" + seq + "}");
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the relay");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.airtribe.TaskMaster.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight<String, String> flight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        flight = new SingleFlight<>("test", meterRegistry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @Test
+    void execute_ConcurrentCallersShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> flight.execute("t1", () -> {
+                calls.incrementAndGet();
+                await(release);
+                return "result";
+            })));
+        }
+        waitForCollapsed(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1.0, counter("executed"));
+        assertEquals(CALLERS - 1, counter("collapsed"));
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_ExceptionReachesEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> flight.execute("t1", () -> {
+                await(release);
+                throw new IllegalStateException("boom");
+            })));
+        }
+        waitForCollapsed(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_SequentialCallsAreNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+
+        flight.execute("t1", () -> "r" + calls.incrementAndGet());
+        String second = flight.execute("t1", () -> "r" + calls.incrementAndGet());
+
+        assertEquals("r2", second);
+        assertEquals(0.0, counter("collapsed"));
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_DifferentKeysRunIndependently() {
+        assertEquals("a", flight.execute("t1", () -> "a"));
+        assertEquals("b", flight.execute("t2", () -> "b"));
+        assertEquals(2.0, counter("executed"));
+        executor.shutdown();
+    }
+
+    private void waitForCollapsed(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.getCollapsedCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double counter(String result) {
+        return meterRegistry.get("taskmaster.singleflight.calls")
+                .tags("name", "test", "result", result)
+                .functionCounter()
+                .count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.AssignmentRequest;
+import com.airtribe.TaskMaster.dto.BulkItemResult;
+import com.airtribe.TaskMaster.dto.BulkResult;
+import com.airtribe.TaskMaster.entity.Priority;
+import com.airtribe.TaskMaster.entity.Role;
+import com.airtribe.TaskMaster.entity.Status;
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.entity.TaskArchive;
+import com.airtribe.TaskMaster.entity.TaskAssignment;
+import com.airtribe.TaskMaster.entity.User;
+import com.airtribe.TaskMaster.exception.BadRequestException;
+import com.airtribe.TaskMaster.repository.TaskArchiveRepository;
+import com.airtribe.TaskMaster.repository.TaskAssignmentRepository;
+import com.airtribe.TaskMaster.repository.TaskRepository;
+import com.airtribe.TaskMaster.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "taskmaster.tasks.bulk.batch-size=10",
+        "taskmaster.tasks.bulk.max-size=50"
+})
+@ActiveProfiles("test")
+@Import(TaskBulkService.class)
+class TaskBulkServiceTest {
+
+    @Autowired
+    private TaskBulkService taskBulkService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoSpyBean
+    private TaskAssignmentRepository taskAssignmentRepository;
+
+    @Autowired
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private TaskSearchIndex searchIndex;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @MockitoBean
+    private TaskCache taskCache;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void createAll_InsertsInJdbcBatches() {
+        BulkResult result = taskBulkService.createAll(tasks(25), "user123");
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(25, result.getSucceeded());
+        assertEquals(0, result.getFailed());
+        assertEquals(25, taskRepository.count());
+        // 25 rows at a batch size of 10: three batches, one prepared statement each
+        assertEquals(3, statements);
+        verify(searchIndex).indexAll(anyCollection());
+    }
+
+    @Test
+    void createAll_ReportsInvalidItemsAndInsertsTheRest() {
+        List<Task> tasks = tasks(3);
+        tasks.get(1).setDueDate(Instant.now().minus(Duration.ofDays(1)));
+        tasks.add(null);
+        tasks.add(Task.builder().id("client-id").title("With id").build());
+
+        BulkResult result = taskBulkService.createAll(tasks, "user123");
+
+        assertEquals(2, result.getSucceeded());
+        assertEquals(3, result.getFailed());
+        List<BulkItemResult> items = result.getResults();
+        assertTrue(items.get(0).isSuccess());
+        assertNotNull(items.get(0).getId());
+        assertEquals("Due date cannot be in the past", items.get(1).getError());
+        assertTrue(items.get(2).isSuccess());
+        assertEquals("Task must not be null", items.get(3).getError());
+        assertEquals("Task id is assigned by the server", items.get(4).getError());
+
+        Task saved = taskRepository.findById(items.get(2).getId()).orElseThrow();
+        assertEquals("user123", saved.getCreatedBy());
+        assertEquals(2, taskRepository.count());
+    }
+
+    @Test
+    void createAll_RejectsEmptyAndOversizedRequests() {
+        assertThrows(BadRequestException.class, () -> taskBulkService.createAll(Collections.emptyList(), "user123"));
+        assertThrows(BadRequestException.class, () -> taskBulkService.createAll(tasks(51), "user123"));
+    }
+
+    @Test
+    void assignAll_ResolvesEverythingInSetBasedQueries() {
+        String alice = user("alice");
+        String bob = user("bob");
+        List<Task> tasks = taskRepository.saveAll(tasks(24));
+        List<AssignmentRequest> requests = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            requests.add(new AssignmentRequest(tasks.get(i).getId(), i % 3 == 0 ? bob : alice));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        BulkResult result = taskBulkService.assignAll(requests, "lead");
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(24, result.getSucceeded());
+        assertEquals(24, taskAssignmentRepository.count());
+        // users, tasks and active assignments; the 24 claims go through JDBC batches
+        assertEquals(3, statements);
+        verify(notificationService).notifyTasksAssigned(eq(alice), argThat(assigned -> assigned.size() == 16), eq("lead"));
+        verify(notificationService).notifyTasksAssigned(eq(bob), argThat(assigned -> assigned.size() == 8), eq("lead"));
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    @Test
+    void assignAll_ReportsUnknownUsersMissingAndAssignedTasks() {
+        String alice = user("alice");
+        List<Task> tasks = taskRepository.saveAll(tasks(3));
+        taskAssignmentRepository.save(TaskAssignment.builder()
+                .task(tasks.get(0)).assignedTo(alice).assignedBy("lead").status(Status.PENDING).build());
+
+        BulkResult result = taskBulkService.assignAll(List.of(
+                new AssignmentRequest(tasks.get(0).getId(), alice),
+                new AssignmentRequest(tasks.get(1).getId(), "nobody"),
+                new AssignmentRequest("missing", alice),
+                new AssignmentRequest(tasks.get(2).getId(), alice),
+                new AssignmentRequest(tasks.get(2).getId(), alice)), "lead");
+
+        assertEquals(1, result.getSucceeded());
+        List<BulkItemResult> items = result.getResults();
+        assertTrue(items.get(0).getError().contains("is currently assigned to user " + alice));
+        assertEquals("User not found: nobody", items.get(1).getError());
+        assertEquals("Task not found: missing", items.get(2).getError());
+        assertTrue(items.get(3).isSuccess());
+        assertTrue(items.get(4).getError().contains("is currently assigned to user " + alice));
+        verify(notificationService).notifyTasksAssigned(eq(alice), argThat(assigned -> assigned.size() == 1), eq("lead"));
+    }
+
+    @Test
+    void assignAll_TaskClaimedSinceTheCheckFailsOnlyThatItem() {
+        String alice = user("alice");
+        String bob = user("bob");
+        List<Task> tasks = taskRepository.saveAll(tasks(12));
+        // bob claims the fourth task after assignAll has looked for active assignments
+        TaskAssignment raced = taskAssignmentRepository.save(TaskAssignment.builder()
+                .task(tasks.get(3)).assignedTo(bob).assignedBy("lead").status(Status.PENDING).build());
+        entityManager.flush();
+        doReturn(List.of()).when(taskAssignmentRepository).findWithTaskByTaskIdInAndStatus(anyCollection(), eq(Status.PENDING));
+        List<AssignmentRequest> requests = new ArrayList<>();
+        tasks.forEach(task -> requests.add(new AssignmentRequest(task.getId(), alice)));
+
+        BulkResult result = taskBulkService.assignAll(requests, "lead");
+
+        assertEquals(11, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertTrue(result.getResults().get(3).getError().contains("is currently assigned to user " + bob));
+        assertEquals(12, taskAssignmentRepository.count());
+        assertEquals(bob, taskAssignmentRepository.findById(raced.getId()).orElseThrow().getAssignedTo());
+        verify(notificationService).notifyTasksAssigned(eq(alice), argThat(assigned -> assigned.size() == 11), eq("lead"));
+    }
+
+    @Test
+    void completeAll_CompletesWithThreeStatements() {
+        List<Task> tasks = taskRepository.saveAll(tasks(30));
+        for (Task task : tasks) {
+            taskAssignmentRepository.save(TaskAssignment.builder()
+                    .task(task).assignedTo("alice").assignedBy("lead").status(Status.PENDING).build());
+        }
+        entityManager.flush();
+        entityManager.createQuery("UPDATE TaskAssignment ta SET ta.assignedAt = :assignedAt")
+                .setParameter("assignedAt", Instant.now().minus(Duration.ofHours(2)))
+                .executeUpdate();
+        entityManager.clear();
+        statistics.clear();
+
+        BulkResult result = taskBulkService.completeAll(tasks.stream().map(Task::getId).toList(), "alice");
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(30, result.getSucceeded());
+        assertEquals(3, statements);
+        assertEquals(0, taskAssignmentRepository.count());
+        List<TaskArchive> archives = taskArchiveRepository.findAll();
+        assertEquals(30, archives.size());
+        assertTrue(archives.stream().allMatch(archive -> archive.getTimeTakenMinutes() == 120L));
+    }
+
+    @Test
+    void completeAll_ReportsTasksWithoutActiveAssignment() {
+        List<Task> tasks = taskRepository.saveAll(tasks(2));
+        taskAssignmentRepository.save(TaskAssignment.builder()
+                .task(tasks.get(0)).assignedTo("alice").assignedBy("lead").status(Status.PENDING).build());
+
+        BulkResult result = taskBulkService.completeAll(Arrays.asList(
+                tasks.get(0).getId(), tasks.get(1).getId(), tasks.get(0).getId(), null), "alice");
+
+        assertEquals(1, result.getSucceeded());
+        List<BulkItemResult> items = result.getResults();
+        assertTrue(items.get(0).isSuccess());
+        assertEquals("No active assignment found for task: " + tasks.get(1).getId(), items.get(1).getError());
+        assertEquals("Task appears more than once in the request", items.get(2).getError());
+        assertEquals("Task ID cannot be null or empty", items.get(3).getError());
+        // only the completed task changed
+        verify(taskCache).evict(tasks.get(0).getId());
+        verifyNoMoreInteractions(taskCache);
+    }
+
+    private String user(String name) {
+        return userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("secret")
+                .roles(Set.of(Role.USER))
+                .build()).getId();
+    }
+
+    private static List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(Task.builder()
+                    .title("Task " + i)
+                    .description("Imported task " + i)
+                    .priority(Priority.MEDIUM)
+                    .dueDate(Instant.now().plus(Duration.ofDays(7)))
+                    .build());
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,131 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Task;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_LoadsOnceThenHits() {
+        TaskCache cache = new TaskCache(true, 10, Duration.ofMinutes(5), meterRegistry);
+
+        cache.get("t1", () -> load("t1"));
+        Optional<Task> cached = cache.get("t1", () -> load("t1"));
+
+        assertEquals("t1", cached.orElseThrow().getId());
+        assertEquals(1, loads.get());
+        assertEquals(1.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+    }
+
+    @Test
+    void get_ReturnsCopies() {
+        TaskCache cache = new TaskCache(true, 10, Duration.ofMinutes(5), meterRegistry);
+
+        cache.get("t1", () -> load("t1")).orElseThrow().setTitle("changed");
+
+        assertEquals("Task t1", cache.get("t1", () -> load("t1")).orElseThrow().getTitle());
+    }
+
+    @Test
+    void get_CallersSharingALoadEachGetTheirOwnCopy() {
+        // what single-flight hands every caller that waited on the same load
+        Task shared = Task.builder().id("t1").title("Task t1").build();
+
+        for (boolean enabled : new boolean[]{true, false}) {
+            TaskCache cache = new TaskCache(enabled, 10, Duration.ofMinutes(5), meterRegistry);
+            Task first = cache.get("t1", () -> Optional.of(shared)).orElseThrow();
+            first.setTitle("changed");
+
+            assertNotSame(shared, first);
+            assertEquals("Task t1", shared.getTitle());
+            assertEquals("Task t1", cache.get("t1", () -> Optional.of(shared)).orElseThrow().getTitle());
+        }
+    }
+
+    @Test
+    void get_AbsentTaskNotCached() {
+        TaskCache cache = new TaskCache(true, 10, Duration.ofMinutes(5), meterRegistry);
+
+        cache.get("missing", () -> { loads.incrementAndGet(); return Optional.empty(); });
+        cache.get("missing", () -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_ExpiredEntryReloaded() throws InterruptedException {
+        TaskCache cache = new TaskCache(true, 10, Duration.ofMillis(1), meterRegistry);
+
+        cache.get("t1", () -> load("t1"));
+        Thread.sleep(5);
+        cache.get("t1", () -> load("t1"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_EvictsLeastRecentlyUsedBeyondMaxSize() {
+        TaskCache cache = new TaskCache(true, 2, Duration.ofMinutes(5), meterRegistry);
+
+        cache.get("t1", () -> load("t1"));
+        cache.get("t2", () -> load("t2"));
+        cache.get("t1", () -> load("t1"));
+        cache.get("t3", () -> load("t3"));
+
+        assertEquals(2, cache.size());
+        cache.get("t1", () -> load("t1"));
+        assertEquals(3, loads.get());
+        cache.get("t2", () -> load("t2"));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void evict_RemovesEntryAndDiscardsRacingLoad() {
+        TaskCache cache = new TaskCache(true, 10, Duration.ofMinutes(5), meterRegistry);
+        cache.get("t1", () -> load("t1"));
+
+        cache.evict("t1");
+        cache.get("t2", () -> { cache.evict("t2"); return load("t2"); });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void passThroughMode_AlwaysLoads() {
+        TaskCache cache = new TaskCache(false, 10, Duration.ofMinutes(5), meterRegistry);
+
+        cache.get("t1", () -> load("t1"));
+        cache.get("t1", () -> load("t1"));
+
+        assertEquals(2, loads.get());
+        assertEquals(2.0, requests("bypass"));
+        assertEquals(0, cache.size());
+    }
+
+    private Optional<Task> load(String id) {
+        loads.incrementAndGet();
+        return Optional.of(Task.builder().id(id).title("Task " + id).build());
+    }
+
+    private double requests(String result) {
+        return meterRegistry.counter("taskmaster.task.cache.requests", "result", result).count();
+    }
+}
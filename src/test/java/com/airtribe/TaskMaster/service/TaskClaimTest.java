@@ -0,0 +1,282 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Priority;
+import com.airtribe.TaskMaster.entity.Status;
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.entity.TaskAssignment;
+import com.airtribe.TaskMaster.entity.User;
+import com.airtribe.TaskMaster.exception.TaskAlreadyAssignedException;
+import com.airtribe.TaskMaster.repository.TaskArchiveRepository;
+import com.airtribe.TaskMaster.repository.TaskAssignmentRepository;
+import com.airtribe.TaskMaster.repository.TaskClaim;
+import com.airtribe.TaskMaster.repository.TaskFilter;
+import com.airtribe.TaskMaster.repository.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * The active-assignment slot: at most one PENDING assignment per task, however the
+ * assignments are written and however many callers race.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({TaskService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskClaimTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskAssignmentRepository taskAssignmentRepository;
+
+    @Autowired
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private TaskSearchIndex searchIndex;
+
+    @MockitoBean
+    private TaskCache taskCache;
+
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        task = taskRepository.save(Task.builder().title("Contested").priority(Priority.HIGH).createdBy("lead").build());
+        when(userService.findById(anyString())).thenReturn(Optional.of(new User()));
+        when(userService.findByUsername(anyString())).thenAnswer(invocation -> {
+            String username = invocation.getArgument(0);
+            return Optional.of(User.builder().id("id-" + username).username(username).build());
+        });
+        when(taskCache.get(anyString(), any())).thenReturn(Optional.of(task));
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskArchiveRepository.deleteAllInBatch();
+        taskAssignmentRepository.deleteAllInBatch();
+        taskRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void claim_SecondClaimReturnsWinner() {
+        TaskClaim first = taskAssignmentRepository.claim(task.getId(), "alice", "lead");
+        TaskClaim second = taskAssignmentRepository.claim(task.getId(), "bob", "lead");
+
+        assertTrue(first.isWon());
+        assertFalse(second.isWon());
+        assertEquals(first.getAssignmentId(), second.getAssignmentId());
+        assertEquals("alice", second.getAssignedTo());
+
+        TaskAssignment stored = taskAssignmentRepository.findById(first.getAssignmentId()).orElseThrow();
+        assertEquals(Status.PENDING, stored.getStatus());
+        assertEquals(task.getId(), stored.getActiveSlot());
+        assertTrue(Duration.between(stored.getAssignedAt(), Instant.now()).abs().getSeconds() < 60);
+    }
+
+    @Test
+    void claim_ConcurrentClaimsHaveExactlyOneWinner() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<TaskClaim>> claims = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String user = "user" + i;
+            claims.add(executor.submit(() -> {
+                start.await();
+                return taskAssignmentRepository.claim(task.getId(), user, "lead");
+            }));
+        }
+        start.countDown();
+
+        List<TaskClaim> results = new ArrayList<>();
+        for (Future<TaskClaim> claim : claims) {
+            results.add(claim.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        List<TaskClaim> winners = results.stream().filter(TaskClaim::isWon).toList();
+        assertEquals(1, winners.size());
+        String winner = winners.get(0).getAssignedTo();
+        assertTrue(results.stream().allMatch(claim -> claim.getAssignedTo().equals(winner)));
+        assertEquals(1, taskAssignmentRepository.count());
+    }
+
+    @Test
+    void assignTask_LoserWithAnOlderSnapshotGetsAConflict() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        assertThrows(TaskAlreadyAssignedException.class, () -> transaction.executeWithoutResult(status -> {
+            // an earlier read fixes the transaction's snapshot before the winner commits
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM task_assignments WHERE active_slot = ?", Integer.class, task.getId()));
+            try {
+                assertTrue(executor.submit(() -> taskAssignmentRepository.claim(task.getId(), "alice", "lead"))
+                        .get(10, TimeUnit.SECONDS).isWon());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            taskService.assignTask(task.getId(), "bob", "lead");
+        }));
+        executor.shutdown();
+
+        assertEquals("alice", taskAssignmentRepository.findActiveAssignment(task).orElseThrow().getAssignedTo());
+    }
+
+    @Test
+    void assignTask_LoserGetsWinnerInConflict() {
+        taskService.assignTask(task.getId(), "alice", "lead");
+
+        TaskAlreadyAssignedException e = assertThrows(TaskAlreadyAssignedException.class,
+                () -> taskService.assignTask(task.getId(), "bob", "lead"));
+        assertTrue(e.getMessage().contains("alice"));
+    }
+
+    @Test
+    void completeTask_FreesTheSlot() {
+        taskService.assignTask(task.getId(), "alice", "lead");
+        taskService.completeTask(task.getId(), "alice");
+
+        taskService.assignTask(task.getId(), "bob", "lead");
+
+        assertEquals("bob", taskAssignmentRepository.findActiveAssignment(task).orElseThrow().getAssignedTo());
+    }
+
+    @Test
+    void save_PendingAssignmentsThroughJpaShareTheSlot() {
+        taskAssignmentRepository.save(TaskAssignment.builder()
+                .task(task).assignedTo("alice").assignedBy("lead").status(Status.PENDING).build());
+
+        assertFalse(taskAssignmentRepository.claim(task.getId(), "bob", "lead").isWon());
+        assertThrows(DataIntegrityViolationException.class, () -> taskAssignmentRepository.save(TaskAssignment.builder()
+                .task(task).assignedTo("carol").assignedBy("lead").status(Status.PENDING).build()));
+    }
+
+    @Test
+    void claimNext_TakesHighestPriorityThenEarliestDue() {
+        Instant now = Instant.now();
+        Task later = taskRepository.save(Task.builder().title("Later").priority(Priority.HIGH)
+                .dueDate(now.plus(Duration.ofDays(2))).createdBy("lead").build());
+        Task sooner = taskRepository.save(Task.builder().title("Sooner").priority(Priority.HIGH)
+                .dueDate(now.plus(Duration.ofDays(1))).createdBy("lead").build());
+        taskRepository.save(Task.builder().title("Low").priority(Priority.LOW)
+                .dueDate(now.plus(Duration.ofHours(1))).createdBy("lead").build());
+
+        assertEquals(sooner.getId(), taskService.claimNext(TaskFilter.builder(), null, "alice").orElseThrow().getId());
+        assertEquals(later.getId(), taskService.claimNext(TaskFilter.builder(), null, "alice").orElseThrow().getId());
+        // tasks without a due date come after dated ones of the same priority
+        assertEquals(task.getId(), taskService.claimNext(TaskFilter.builder(), null, "alice").orElseThrow().getId());
+        assertEquals("Low", taskService.claimNext(TaskFilter.builder(), null, "alice").orElseThrow().getTitle());
+        assertTrue(taskService.claimNext(TaskFilter.builder(), null, "alice").isEmpty());
+    }
+
+    @Test
+    void claimNext_RespectsFilters() {
+        taskRepository.save(Task.builder().title("Other").priority(Priority.MEDIUM).createdBy("someone").build());
+
+        assertTrue(taskService.claimNext(TaskFilter.builder().createdBy("nobody"), null, "alice").isEmpty());
+        assertTrue(taskService.claimNext(TaskFilter.builder(), Priority.LOW, "alice").isEmpty());
+        assertEquals("Other", taskService.claimNext(TaskFilter.builder().createdBy("someone"), null, "alice")
+                .orElseThrow().getTitle());
+        assertEquals(0, taskAssignmentRepository.findActiveAssignment(task).stream().count());
+    }
+
+    @Test
+    void claimNext_AssignsTheCallerAndRecordsTheirUsernameAsAssigner() {
+        Task claimed = taskService.claimNext(TaskFilter.builder(), null, "alice").orElseThrow();
+
+        TaskAssignment assignment = taskAssignmentRepository.findActiveAssignment(claimed).orElseThrow();
+        assertEquals("id-alice", assignment.getAssignedTo());
+        // the same audit data as an assignment made through /assign
+        assertEquals("alice", assignment.getAssignedBy());
+    }
+
+    @Test
+    void claimNext_ConcurrentWorkersNeverShareATask() throws Exception {
+        for (int i = 0; i < THREADS * 2 - 1; i++) {
+            taskRepository.save(Task.builder().title("Job " + i).priority(Priority.MEDIUM).createdBy("lead").build());
+        }
+        int tasks = THREADS * 2;
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<String>>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String user = "worker" + i;
+            workers.add(executor.submit(() -> {
+                start.await();
+                List<String> claimed = new ArrayList<>();
+                Optional<Task> next;
+                while ((next = taskService.claimNext(TaskFilter.builder(), null, user)).isPresent()) {
+                    claimed.add(next.get().getId());
+                }
+                return claimed;
+            }));
+        }
+        start.countDown();
+
+        Set<String> claimed = new HashSet<>();
+        int total = 0;
+        for (Future<List<String>> worker : workers) {
+            List<String> ids = worker.get(30, TimeUnit.SECONDS);
+            claimed.addAll(ids);
+            total += ids.size();
+        }
+        executor.shutdown();
+
+        assertEquals(tasks, total);
+        assertEquals(tasks, claimed.size());
+        assertEquals(tasks, taskAssignmentRepository.count());
+    }
+}
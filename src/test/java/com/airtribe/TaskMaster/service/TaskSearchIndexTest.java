@@ -0,0 +1,101 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskSearchIndexTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    private TaskSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TaskSearchIndex(taskRepository, taskScheduler);
+        when(taskRepository.findByDeletedFalse(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(
+                task("t1", "Quarterly Réview", "Review the project deliverables"),
+                task("t2", "Deploy release", "Ship the reviewed build"),
+                task("t3", "Write report", "Quarterly numbers"))));
+        index.rebuild();
+    }
+
+    @Test
+    void rebuild_MarksIndexReady() {
+        assertTrue(index.isReady());
+    }
+
+    @Test
+    void match_FoldsCaseAndAccents() {
+        Map<String, Double> matches = index.match(TaskSearchIndex.Field.TITLE, "REVIEW");
+
+        assertEquals(Set.of("t1"), matches.keySet());
+    }
+
+    @Test
+    void match_RequiresEveryTokenAndMatchesPrefixes() {
+        assertEquals(List.of("t1"), List.copyOf(index.match(TaskSearchIndex.Field.TITLE, "quart rev").keySet()));
+        assertTrue(index.match(TaskSearchIndex.Field.TITLE, "quarterly deploy").isEmpty());
+    }
+
+    @Test
+    void match_RanksExactTermAbovePrefix() {
+        Map<String, Double> matches = index.match(TaskSearchIndex.Field.DESCRIPTION, "review");
+
+        assertEquals(2, matches.size());
+        assertTrue(matches.get("t1") > matches.get("t2"));
+    }
+
+    @Test
+    void intersectAndUnion_CombineFields() {
+        Map<String, Double> title = index.match(TaskSearchIndex.Field.TITLE, "quarterly");
+        Map<String, Double> description = index.match(TaskSearchIndex.Field.DESCRIPTION, "quarterly");
+
+        assertTrue(TaskSearchIndex.intersect(title, description).isEmpty());
+        assertEquals(2, TaskSearchIndex.union(title, description).size());
+    }
+
+    @Test
+    void index_ReplacesAndRemovesDocuments() {
+        index.index(task("t2", "Deploy hotfix", null));
+        assertTrue(index.match(TaskSearchIndex.Field.TITLE, "release").isEmpty());
+        assertTrue(index.match(TaskSearchIndex.Field.TITLE, "hotfix").containsKey("t2"));
+
+        index.remove("t2");
+        assertTrue(index.match(TaskSearchIndex.Field.TITLE, "hotfix").isEmpty());
+    }
+
+    @Test
+    void index_DeletedTaskIsRemoved() {
+        Task deleted = task("t3", "Write report", null);
+        deleted.setDeleted(true);
+
+        index.index(deleted);
+
+        assertTrue(index.match(TaskSearchIndex.Field.TITLE, "report").isEmpty());
+    }
+
+    private Task task(String id, String title, String description) {
+        return Task.builder().id(id).title(title).description(description).build();
+    }
+}
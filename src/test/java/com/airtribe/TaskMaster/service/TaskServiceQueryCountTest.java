@@ -0,0 +1,275 @@
+package com.airtribe.TaskMaster.service;
+
+import com.airtribe.TaskMaster.dto.CursorPage;
+import com.airtribe.TaskMaster.entity.Priority;
+import com.airtribe.TaskMaster.entity.SortDirection;
+import com.airtribe.TaskMaster.entity.Status;
+import com.airtribe.TaskMaster.entity.Task;
+import com.airtribe.TaskMaster.entity.TaskArchive;
+import com.airtribe.TaskMaster.entity.TaskAssignment;
+import com.airtribe.TaskMaster.exception.BadRequestException;
+import com.airtribe.TaskMaster.exception.TaskAlreadyCompletedException;
+import com.airtribe.TaskMaster.repository.TaskFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards the task listing paths against N+1 queries: the number of statements
+ * must not depend on how many tasks are in the table.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({TaskService.class, SimpleMeterRegistry.class})
+class TaskServiceQueryCountTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private TaskSearchIndex searchIndex;
+
+    @MockitoBean
+    private TaskCache taskCache;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findByUser_QueryCountIndependentOfTableSize() {
+        seed(5, "user123");
+        long smallTable = countStatements(() -> assertEquals(5, taskService.findByUser("user123", null, 20).getItems().size()));
+
+        seed(200, "someoneElse");
+        seed(10, "user123");
+        long largeTable = countStatements(() -> assertEquals(15, taskService.findByUser("user123", null, 20).getItems().size()));
+
+        assertEquals(1, smallTable);
+        assertEquals(smallTable, largeTable);
+    }
+
+    @Test
+    void findByUser_KeysetPagesVisitEveryTaskOnce() {
+        seed(12, "user123");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(12, collectPages(cursor -> taskService.findByUser("user123", cursor, 5)).size());
+    }
+
+    @Test
+    void findByStatus_KeysetPagesWithOneQueryEach() {
+        seed(30, "user123");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(30, collectPages(cursor -> taskService.findByStatus(Status.PENDING, cursor, 7)).size());
+        assertTrue(taskService.findByStatus(Status.COMPLETED, null, 7).getItems().isEmpty());
+    }
+
+    @Test
+    void findAll_KeysetPagesHandleDuplicateAndNullKeys() {
+        for (String title : new String[] {"b", "a", null, "b", "c", null, "a", "b"}) {
+            entityManager.persist(Task.builder().title(title).createdBy("creator").build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        for (SortDirection direction : SortDirection.values()) {
+            List<Task> tasks = collectPages(cursor -> taskService.findAll(TaskFilter.builder(), "title", direction, cursor, 3));
+            assertEquals(8, tasks.size());
+            List<String> titles = tasks.stream().map(Task::getTitle).toList();
+            List<String> expected = new ArrayList<>(titles);
+            Comparator<String> order = Comparator.nullsFirst(Comparator.naturalOrder());
+            expected.sort(direction == SortDirection.ASC ? order : order.reversed());
+            assertEquals(expected, titles);
+        }
+    }
+
+    @Test
+    void findAll_CombinesFilters() {
+        Instant now = Instant.now();
+        Task match = Task.builder().title("Fix login").priority(Priority.HIGH).createdBy("alice")
+                .dueDate(now.plusSeconds(3600)).build();
+        Task wrongPriority = Task.builder().title("Fix logout").priority(Priority.LOW).createdBy("alice")
+                .dueDate(now.plusSeconds(3600)).build();
+        Task dueLater = Task.builder().title("Fix signup").priority(Priority.HIGH).createdBy("alice")
+                .dueDate(now.plusSeconds(86400 * 7)).build();
+        Task deleted = Task.builder().title("Fix login page").priority(Priority.HIGH).createdBy("alice")
+                .dueDate(now.plusSeconds(3600)).deleted(true).build();
+        List.of(match, wrongPriority, dueLater, deleted).forEach(entityManager::persist);
+        entityManager.persist(TaskAssignment.builder().task(match).assignedTo("bob").status(Status.PENDING).build());
+        entityManager.persist(TaskAssignment.builder().task(dueLater).assignedTo("bob").status(Status.PENDING).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        TaskFilter.TaskFilterBuilder filter = TaskFilter.builder()
+                .title("fix")
+                .priority(Priority.HIGH)
+                .createdBy("alice")
+                .dueFrom(now)
+                .dueBefore(now.plusSeconds(86400))
+                .assignmentStatus(Status.PENDING)
+                .assignedTo("bob");
+
+        List<Task> tasks = collectPages(cursor -> taskService.findAll(filter, "dueDate", SortDirection.ASC, cursor, 10));
+
+        assertEquals(List.of(match.getId()), tasks.stream().map(Task::getId).toList());
+        assertEquals(List.of(deleted.getId()), taskService.findAll(TaskFilter.builder().deleted(true),
+                null, SortDirection.DESC, null, 10).getItems().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void searchFallback_MatchesLikeTheSearchIndex() {
+        Task both = Task.builder().title("Security review").description("Quarterly audit").createdBy("alice").build();
+        Task reordered = Task.builder().title("Review: security-fixes").description("Release notes").createdBy("alice").build();
+        Task inTheMiddle = Task.builder().title("Preview security").description("Draft").createdBy("alice").build();
+        Task oneWord = Task.builder().title("Review backlog").description("Quarterly planning").createdBy("alice").build();
+        List.of(both, reordered, inTheMiddle, oneWord).forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+
+        // every word must start a word of the title, in any order; "Preview" does not start with "rev"
+        List<Task> byTitle = collectPages(cursor -> taskService.searchByTitle("REV sec", "createdAt", SortDirection.DESC, cursor, 1));
+        assertEquals(Set.of(both.getId(), reordered.getId()), ids(byTitle));
+        assertEquals(Set.of(both.getId(), reordered.getId()), ids(collectPages(cursor ->
+                taskService.findAll(TaskFilter.builder().title("rev sec"), null, SortDirection.DESC, cursor, 10))));
+        assertEquals(Set.of(inTheMiddle.getId(), both.getId(), oneWord.getId()), ids(taskService.searchByTitleOrDescription(
+                "preview", "quarter", "createdAt", SortDirection.DESC, null, 10).getItems()));
+        assertEquals(Set.of(both.getId()), ids(taskService.searchByTitleAndDescription(
+                "review", "audit", "createdAt", SortDirection.DESC, null, 10).getItems()));
+        assertTrue(taskService.searchByTitle("view", "createdAt", SortDirection.DESC, null, 10).getItems().isEmpty());
+        assertTrue(taskService.searchByTitle("!!!", "createdAt", SortDirection.DESC, null, 10).getItems().isEmpty());
+    }
+
+    @Test
+    void findAll_UnknownSortField_Rejected() {
+        assertThrows(BadRequestException.class,
+                () -> taskService.findAll(TaskFilter.builder(), "password", SortDirection.ASC, null, 10));
+    }
+
+    /**
+     * Follow nextCursor to the end, checking each page is a single statement and no task repeats
+     */
+    private List<Task> collectPages(Function<String, CursorPage<Task>> fetch) {
+        Set<String> seen = new HashSet<>();
+        List<Task> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            statistics.clear();
+            CursorPage<Task> page = fetch.apply(cursor);
+            assertEquals(1, statistics.getPrepareStatementCount());
+            page.getItems().forEach(task -> assertTrue(seen.add(task.getId())));
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    @Test
+    void completeTask_LocksArchivesAndDeletesWithThreeStatements() {
+        seed(1, "user123");
+        entityManager.flush();
+        entityManager.createQuery("UPDATE TaskAssignment ta SET ta.assignedAt = :assignedAt")
+                .setParameter("assignedAt", Instant.now().minus(Duration.ofMinutes(90)))
+                .executeUpdate();
+        Task task = entityManager.createQuery("SELECT t FROM Task t", Task.class).getSingleResult();
+        when(taskCache.get(eq(task.getId()), any())).thenReturn(Optional.of(task));
+
+        long statements = countStatements(() -> assertEquals(task.getId(), taskService.completeTask(task.getId(), "user123").getId()));
+
+        assertEquals(3, statements);
+        TaskArchive archive = entityManager.createQuery("SELECT a FROM TaskArchive a", TaskArchive.class).getSingleResult();
+        assertEquals("user123", archive.getCompletedBy());
+        assertEquals(90L, archive.getTimeTakenMinutes());
+        assertEquals(0L, entityManager.createQuery("SELECT count(ta) FROM TaskAssignment ta", Long.class).getSingleResult());
+        InOrder inOrder = inOrder(taskCache);
+        inOrder.verify(taskCache).evict(task.getId());
+        inOrder.verify(taskCache).get(eq(task.getId()), any());
+    }
+
+    @Test
+    void completeTask_WithoutActiveAssignmentFails() {
+        seed(1, "user123");
+        entityManager.flush();
+        Task task = entityManager.createQuery("SELECT t FROM Task t", Task.class).getSingleResult();
+        when(taskCache.get(eq(task.getId()), any())).thenReturn(Optional.of(task));
+        taskService.completeTask(task.getId(), "user123");
+
+        assertThrows(TaskAlreadyCompletedException.class, () -> taskService.completeTask(task.getId(), "user123"));
+        assertThrows(RuntimeException.class, () -> taskService.completeTask("missing", "user123"));
+    }
+
+    private static Set<String> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).collect(Collectors.toSet());
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seed(int count, String assignee) {
+        for (int i = 0; i < count; i++) {
+            Task task = Task.builder()
+                    .title("Task " + i)
+                    .priority(Priority.MEDIUM)
+                    .createdBy("creator")
+                    .build();
+            entityManager.persist(task);
+            entityManager.persist(TaskAssignment.builder()
+                    .task(task)
+                    .assignedTo(assignee)
+                    .assignedBy("creator")
+                    .status(Status.PENDING)
+                    .build());
+        }
+    }
+}
@@ -1,24 +1,35 @@
 package com.airtribe.TaskMaster.service;
 
+import com.airtribe.TaskMaster.dto.CursorPage;
+import com.airtribe.TaskMaster.dto.PageCursor;
 import com.airtribe.TaskMaster.entity.*;
 import com.airtribe.TaskMaster.exception.BadRequestException;
+import com.airtribe.TaskMaster.exception.TaskAlreadyAssignedException;
 import com.airtribe.TaskMaster.exception.TaskDeletionException;
 import com.airtribe.TaskMaster.repository.TaskRepository;
+import com.airtribe.TaskMaster.repository.TaskArchiveRepository;
 import com.airtribe.TaskMaster.repository.TaskAssignmentRepository;
+import com.airtribe.TaskMaster.repository.TaskClaim;
+import com.airtribe.TaskMaster.repository.TaskFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +47,18 @@ class TaskServiceTest {
     @Mock
     private TaskAssignmentRepository taskAssignmentRepository;
 
+    @Mock
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @Mock
+    private TaskSearchIndex searchIndex;
+
+    @Mock
+    private TaskCache taskCache;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private TaskService taskService;
 
@@ -76,16 +99,32 @@ class TaskServiceTest {
     @Test
     void assignTask_Success() {
         String assigneeId = "assignee123";
-        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
-        when(taskAssignmentRepository.findActiveAssignment(task)).thenReturn(Optional.empty());
         when(userService.findById(assigneeId)).thenReturn(Optional.of(new User()));
-        when(taskRepository.save(any(Task.class))).thenReturn(task);
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        when(taskAssignmentRepository.claim(task.getId(), assigneeId, userId))
+                .thenReturn(new TaskClaim(true, "assignment1", assigneeId));
 
         Task assignedTask = taskService.assignTask(task.getId(), assigneeId, userId);
 
-        assertNotNull(assignedTask);
-        verify(taskRepository).save(any(Task.class));
-        verify(notificationService).notifyTaskAssignment(eq(assigneeId), any(Task.class), any(TaskAssignment.class));
+        assertEquals(task.getId(), assignedTask.getId());
+        verify(notificationService).notifyTaskAssignment(eq(assigneeId), eq(task),
+                argThat(assignment -> "assignment1".equals(assignment.getId()) && userId.equals(assignment.getAssignedBy())));
+    }
+
+    @Test
+    void assignTask_LostClaim_ThrowsAlreadyAssigned() {
+        String assigneeId = "assignee123";
+        when(userService.findById(assigneeId)).thenReturn(Optional.of(new User()));
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        // someone else's assign of the same task committed first
+        when(taskAssignmentRepository.claim(task.getId(), assigneeId, userId))
+                .thenReturn(new TaskClaim(false, "assignment0", "other"));
+
+        TaskAlreadyAssignedException e = assertThrows(TaskAlreadyAssignedException.class,
+                () -> taskService.assignTask(task.getId(), assigneeId, userId));
+
+        assertTrue(e.getMessage().contains("assigned to user other"));
+        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -99,31 +138,65 @@ class TaskServiceTest {
     @Test
     void searchByTitle_Success() {
         List<Task> tasks = Arrays.asList(task);
-        when(taskRepository.findByTitleContainingIgnoreCaseAndDeletedFalse("Test")).thenReturn(tasks);
+        when(taskRepository.findPage(any(TaskFilter.class))).thenReturn(tasks);
 
-        List<Task> result = taskService.searchByTitle("Test", "createdAt", SortDirection.DESC);
+        List<Task> result = taskService.searchByTitle("Test", "createdAt", SortDirection.DESC, null, 20).getItems();
 
         assertNotNull(result);
         assertFalse(result.isEmpty());
         assertEquals(tasks.size(), result.size());
         assertEquals(tasks.get(0).getId(), result.get(0).getId());
+        verify(taskRepository).findPage(argThat(filter -> "Test".equals(filter.getTitle())));
     }
 
     @Test
-    void completeTask_Success() {
-        TaskAssignment activeAssignment = new TaskAssignment();
-        activeAssignment.setAssignedTo(userId);
-        activeAssignment.setStatus(Status.IN_PROGRESS);
+    void searchByTitle_ManyMatchesAreNotSentAsAnIdList() {
+        Map<String, Double> matches = new HashMap<>();
+        for (int i = 0; i < 1500; i++) {
+            matches.put("t" + i, 1.0);
+        }
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.isSearchable("Test")).thenReturn(true);
+        when(searchIndex.match(TaskSearchIndex.Field.TITLE, "Test")).thenReturn(matches);
+        when(taskRepository.findPage(any(TaskFilter.class))).thenReturn(List.of(
+                Task.builder().id("t1").build(), Task.builder().id("other").build(), Task.builder().id("t2").build()));
+
+        CursorPage<Task> first = taskService.searchByTitle("Test", "createdAt", SortDirection.DESC, null, 1);
+        CursorPage<Task> all = taskService.searchByTitle("Test", "createdAt", SortDirection.DESC, null, 5);
+
+        assertEquals(List.of("t1"), first.getItems().stream().map(Task::getId).toList());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of("t1", "t2"), all.getItems().stream().map(Task::getId).toList());
+        assertNull(all.getNextCursor());
+        verify(taskRepository, never()).findPage(argThat(filter -> filter.getIds() != null));
+    }
 
-        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
-        when(taskAssignmentRepository.findActiveAssignment(task)).thenReturn(Optional.of(activeAssignment));
-        when(taskRepository.save(any(Task.class))).thenReturn(task);
+    @Test
+    void tamperedCursorValues_AreBadRequests() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.isSearchable("Test")).thenReturn(true);
+        when(searchIndex.match(TaskSearchIndex.Field.TITLE, "Test")).thenReturn(Map.of(task.getId(), 1.0));
+
+        assertThrows(BadRequestException.class, () -> taskService.findByUser(userId,
+                new PageCursor("assignedAt", SortDirection.DESC, "yesterday", "a1").encode(), 20));
+        assertThrows(BadRequestException.class, () -> taskService.searchByTitle("Test", "relevance", SortDirection.DESC,
+                new PageCursor("relevance", SortDirection.DESC, "high", task.getId()).encode(), 20));
+        assertThrows(BadRequestException.class, () -> TaskSortField.DUE_DATE.parse("tomorrow"));
+    }
+
+    @Test
+    void completeTask_Success() {
+        TaskAssignmentRepository.AssignmentKey key = mock(TaskAssignmentRepository.AssignmentKey.class);
+        when(key.getId()).thenReturn("assignment1");
+        when(taskAssignmentRepository.lockPendingByTaskIdIn(List.of(task.getId()))).thenReturn(List.of(key));
+        when(taskCache.get(eq(task.getId()), any())).thenReturn(Optional.of(task));
 
         Task completedTask = taskService.completeTask(task.getId(), userId);
 
-        assertNotNull(completedTask);
-        verify(taskRepository).save(any(Task.class));
-        verify(notificationService).notifyTaskCompletion(eq(userId), any(Task.class), any(TaskArchive.class));
+        assertEquals(task.getId(), completedTask.getId());
+        verify(taskArchiveRepository).archiveAssignments(eq(List.of("assignment1")), eq(userId), any(Instant.class));
+        verify(taskAssignmentRepository).deleteAllByIdInBatch(List.of("assignment1"));
+        verify(taskCache).evict(task.getId());
     }
 
     @Test
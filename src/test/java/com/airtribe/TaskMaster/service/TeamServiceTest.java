@@ -12,10 +12,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.HashSet;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,7 +53,11 @@ class TeamServiceTest {
     @Test
     void create_Success() {
         when(userService.loadUserByUsername(user.getUsername())).thenReturn(user);
-        when(teamRepository.save(any(Team.class))).thenReturn(team);
+        when(teamRepository.save(any(Team.class))).thenAnswer(invocation -> {
+            Team saved = invocation.getArgument(0);
+            saved.setId(team.getId());
+            return saved;
+        });
 
         Team result = service.create(team.getName(), team.getDescription(), user.getUsername());
 
@@ -80,34 +84,11 @@ class TeamServiceTest {
     void join_Success() {
         when(teamRepository.findById(team.getId())).thenReturn(Optional.of(team));
         when(userService.loadUserByUsername(user.getUsername())).thenReturn(user);
-        when(teamRepository.save(any(Team.class))).thenReturn(team);
 
-        Team result = service.join(team.getId(), user.getUsername());
+        service.join(team.getId(), user.getUsername());
 
-        assertNotNull(result);
-        assertTrue(result.getMembers().contains(user));
-    }
-
-    @Test
-    void invite_Success() {
-        when(teamRepository.findById(team.getId())).thenReturn(Optional.of(team));
-
-        boolean result = service.invite(team.getId(), "test@example.com");
-
-        assertTrue(result);
-    }
-
-    @Test
-    void leave_Success() {
-        team.getMembers().add(user);
-        when(teamRepository.findById(team.getId())).thenReturn(Optional.of(team));
-        when(userService.loadUserByUsername(user.getUsername())).thenReturn(user);
-        when(teamRepository.save(any(Team.class))).thenReturn(team);
-
-        Team result = service.leave(team.getId(), user.getUsername());
-
-        assertNotNull(result);
-        assertFalse(result.getMembers().contains(user));
+        assertTrue(team.getMembers().contains(user));
+        verify(teamRepository).save(team);
     }
 
     @Test